@@ -2,7 +2,9 @@ package com.mikhail.tarasevich.socialmedia;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @SpringBootApplication(scanBasePackages = "com.mikhail.tarasevich.socialmedia")
 public class RestApiSocialMediaApplication {
 
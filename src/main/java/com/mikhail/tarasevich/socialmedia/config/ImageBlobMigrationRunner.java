@@ -0,0 +1,43 @@
+package com.mikhail.tarasevich.socialmedia.config;
+
+import com.mikhail.tarasevich.socialmedia.service.ImageBlobMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "image.blob-store.migrate-on-startup", havingValue = "true")
+public class ImageBlobMigrationRunner implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageBlobMigrationRunner.class);
+
+    private final ImageBlobMigrationService migrationService;
+    private final int batchSize;
+
+    @Autowired
+    public ImageBlobMigrationRunner(ImageBlobMigrationService migrationService,
+                                    @Value("${image.blob-store.migration-batch-size:100}") int batchSize) {
+        this.migrationService = migrationService;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        int migrated = 0;
+        int batch;
+
+        do {
+            batch = migrationService.migrateBatch(batchSize);
+            migrated += batch;
+        } while (batch == batchSize);
+
+        LOGGER.info("Moved {} images from the database to the blob store", migrated);
+    }
+
+}
@@ -1,7 +1,10 @@
 package com.mikhail.tarasevich.socialmedia.config;
 
+import com.mikhail.tarasevich.socialmedia.security.AuthRateLimitFilter;
+import com.mikhail.tarasevich.socialmedia.security.BCryptStrengthCalibrator;
 import com.mikhail.tarasevich.socialmedia.security.JWTFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +29,7 @@ public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
     private final JWTFilter jwtFilter;
+    private final AuthRateLimitFilter rateLimitFilter;
     private final AuthenticationEntryPoint entryPoint;
 
     private static final String[] AUTH_WHITELIST = {
@@ -41,9 +45,11 @@ public class SecurityConfig {
     };
 
     @Autowired
-    public SecurityConfig(UserDetailsService userDetailsService, JWTFilter jwtFilter, AuthenticationEntryPoint entryPoint) {
+    public SecurityConfig(UserDetailsService userDetailsService, JWTFilter jwtFilter, AuthRateLimitFilter rateLimitFilter,
+                          AuthenticationEntryPoint entryPoint) {
         this.userDetailsService = userDetailsService;
         this.jwtFilter = jwtFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.entryPoint = entryPoint;
     }
 
@@ -53,7 +59,7 @@ public class SecurityConfig {
         http.csrf().disable()
                 .authorizeRequests()
                 .antMatchers(AUTH_WHITELIST).permitAll()
-                .antMatchers("/api/v1/auth/registration", "/api/v1/auth/login").permitAll()
+                .antMatchers("/api/v1/auth/registration", "/api/v1/auth/login", "/api/v1/auth/refresh").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .exceptionHandling()
@@ -62,6 +68,7 @@ public class SecurityConfig {
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
 
+        http.addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -77,8 +84,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:0}") int strength,
+                                           @Value("${security.bcrypt.target-millis:250}") long targetMillis,
+                                           @Value("${security.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${security.bcrypt.max-strength:14}") int maxStrength) {
+
+        if (strength <= 0) {
+            strength = BCryptStrengthCalibrator.calibrate(targetMillis, minStrength, maxStrength);
+        }
+
+        return new BCryptPasswordEncoder(strength);
     }
 
 }
@@ -1,10 +1,17 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.mikhail.tarasevich.socialmedia.dto.LoginRequest;
 import com.mikhail.tarasevich.socialmedia.dto.LoginResponse;
+import com.mikhail.tarasevich.socialmedia.dto.RefreshTokenRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.security.CurrentUser;
 import com.mikhail.tarasevich.socialmedia.security.JWTUtil;
+import com.mikhail.tarasevich.socialmedia.security.PasswordHashingExecutor;
+import com.mikhail.tarasevich.socialmedia.security.UserSecurityDetails;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
 import com.mikhail.tarasevich.socialmedia.service.UserService;
 import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotValidDataException;
@@ -13,16 +20,23 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/auth")
@@ -32,32 +46,40 @@ public class AuthController {
     private final JWTUtil jwtUtil;
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService revocationService;
 
     @Autowired
-    public AuthController(JWTUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager) {
+    public AuthController(JWTUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager,
+                          PasswordHashingExecutor hashingExecutor, RefreshTokenService refreshTokenService,
+                          TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.hashingExecutor = hashingExecutor;
+        this.refreshTokenService = refreshTokenService;
+        this.revocationService = revocationService;
     }
 
     @PostMapping("/registration")
     @ApiOperation(value = "Зарегестрировать нового пользователя", response = LoginResponse.class)
-    public LoginResponse performRegistration(
+    public CompletableFuture<LoginResponse> performRegistration(
             @ApiParam(value = "Данные о новом пользователе", required = true) @RequestBody @Valid UserRequest userRequest,
             BindingResult bindingResult) {
 
         BindingResultValidator.checkErrorsInBindingResult(bindingResult, UserNotValidDataException.class);
 
-        UserResponse userResponse = userService.saveUser(userRequest);
+        return hashingExecutor.submit(() -> {
+            UserResponse userResponse = userService.saveUser(userRequest);
 
-        String token = jwtUtil.generateToken(userResponse.getEmail());
-
-        return LoginResponse.builder().withToken(token).build();
+            return issueTokens(userResponse.getId(), userResponse.getName(), userResponse.getEmail());
+        });
     }
 
     @PostMapping("/login")
     @ApiOperation(value = "Пройти аутентификацию в системе с указанием email и password", response = LoginResponse.class)
-    public LoginResponse performLogin(
+    public CompletableFuture<LoginResponse> performLogin(
             @ApiParam(value = "Данные о пользователе (email, password)", required = true) @RequestBody @Valid LoginRequest request,
             BindingResult bindingResult) {
 
@@ -66,15 +88,71 @@ public class AuthController {
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword());
 
-        try {
-            authenticationManager.authenticate(authInputToken);
-        } catch (BadCredentialsException e) {
-            throw new AuthenticationDataException("Incorrect credentials. Try login again.");
+        return hashingExecutor.submit(() -> {
+            Authentication authentication;
+
+            try {
+                authentication = authenticationManager.authenticate(authInputToken);
+            } catch (BadCredentialsException e) {
+                throw new AuthenticationDataException("Incorrect credentials. Try login again.");
+            }
+
+            UserSecurityDetails userDetails = (UserSecurityDetails) authentication.getPrincipal();
+
+            return issueTokens(userDetails.getId(), userDetails.getName(), userDetails.getUsername());
+        });
+    }
+
+    @PostMapping("/refresh")
+    @ApiOperation(value = "Обменять refresh token на новую пару токенов", response = LoginResponse.class)
+    public LoginResponse refreshToken(
+            @ApiParam(value = "Refresh token, полученный ранее", required = true) @RequestBody @Valid RefreshTokenRequest request,
+            BindingResult bindingResult) {
+
+        BindingResultValidator.checkErrorsInBindingResult(bindingResult, AuthenticationDataException.class);
+
+        UserResponse userResponse = refreshTokenService.consumeRefreshToken(request.getRefreshToken());
+
+        return issueTokens(userResponse.getId(), userResponse.getName(), userResponse.getEmail());
+    }
+
+    @PostMapping("/logout")
+    @ApiOperation(value = "Выйти из системы, отозвав текущий токен")
+    public ResponseEntity<String> logout(@ApiIgnore @CurrentUser UserResponse user,
+                                         @ApiIgnore @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                                         @ApiParam(value = "Refresh token, который нужно отозвать вместе с токеном доступа")
+                                         @RequestBody(required = false) RefreshTokenRequest request) {
+
+        DecodedJWT decodedJWT = jwtUtil.verifyToken(authHeader.substring(7));
+
+        if (decodedJWT.getId() == null) {
+            revocationService.revokeAllUserTokens(user.getId(), user.getEmail());
+        } else {
+            revocationService.revokeToken(decodedJWT.getId(), decodedJWT.getExpiresAtAsInstant());
+
+            if (request != null && request.getRefreshToken() != null) {
+                refreshTokenService.revokeRefreshToken(request.getRefreshToken());
+            }
         }
 
-        String token = jwtUtil.generateToken(request.getEmail());
+        return ResponseEntity.status(HttpStatus.OK).body("User with id = " + user.getId() + " was logged out");
+    }
+
+    @PostMapping("/logout/all")
+    @ApiOperation(value = "Завершить все сессии пользователя")
+    public ResponseEntity<String> logoutAll(@ApiIgnore @CurrentUser UserResponse user) {
+
+        revocationService.revokeAllUserTokens(user.getId(), user.getEmail());
+
+        return ResponseEntity.status(HttpStatus.OK).body("All sessions of user with id = " + user.getId() + " were closed");
+    }
+
+    private LoginResponse issueTokens(int id, String name, String email) {
 
-        return LoginResponse.builder().withToken(token).build();
+        return LoginResponse.builder()
+                .withToken(jwtUtil.generateToken(id, name, email))
+                .withRefreshToken(refreshTokenService.createRefreshToken(id))
+                .build();
     }
 
 }
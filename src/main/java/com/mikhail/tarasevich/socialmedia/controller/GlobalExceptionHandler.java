@@ -1,17 +1,22 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
 import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
+import com.mikhail.tarasevich.socialmedia.service.exception.BlobStoreException;
 import com.mikhail.tarasevich.socialmedia.service.exception.ImageIncorrectDataException;
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageTooLargeException;
 import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotFoundException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
+import com.mikhail.tarasevich.socialmedia.service.exception.ServiceOverloadedException;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.util.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 
@@ -88,4 +93,45 @@ public class GlobalExceptionHandler {
                 HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> imageTooLargeException(ImageTooLargeException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> maxUploadSizeExceededException(MaxUploadSizeExceededException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage("The uploaded file is too large")
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> blobStoreException(BlobStoreException exception) {
+
+        return new ResponseEntity<>(ErrorResponse.builder()
+                .withMessage(exception.getMessage())
+                .withTimestamp(LocalDateTime.now())
+                .build(),
+                HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> serviceOverloadedException(ServiceOverloadedException exception) {
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(ErrorResponse.builder()
+                        .withMessage(exception.getMessage())
+                        .withTimestamp(LocalDateTime.now())
+                        .build());
+    }
+
 }
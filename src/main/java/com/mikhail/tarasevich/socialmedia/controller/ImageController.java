@@ -1,40 +1,126 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
 import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.ImageVariantService;
+import com.mikhail.tarasevich.socialmedia.util.ETagUtil;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import springfox.documentation.annotations.ApiIgnore;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("api/v1/image")
 @Api(tags = "Контроллер для получение изображений из базы данных")
 public class ImageController {
 
+    private static final String IMAGE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
     ImageService imageService;
 
+    ImageVariantService imageVariantService;
+
     @Autowired
-    public ImageController(ImageService imageService) {
+    public ImageController(ImageService imageService, ImageVariantService imageVariantService) {
         this.imageService = imageService;
+        this.imageVariantService = imageVariantService;
     }
 
     @GetMapping("/{id}")
-    @ApiOperation(value = "Загрузить изображение по ID", notes = "Загружает изображение из базы данных по указанному ID")
-    public ResponseEntity<byte[]> downloadImage(
-            @ApiParam(value = "ID изображения в базе данных", example = "1", required = true) @PathVariable int id) {
+    @ApiOperation(value = "Загрузить изображение по ID", notes = "Загружает изображение по указанному ID, поддерживает частичную загрузку через заголовок Range. С параметром w возвращает уменьшенную копию изображения не уже указанной ширины")
+    public ResponseEntity<Resource> downloadImage(
+            @ApiParam(value = "ID изображения в базе данных", example = "1", required = true) @PathVariable int id,
+            @ApiParam(value = "Требуемая ширина изображения в пикселях", example = "320") @RequestParam(value = "w", required = false) Integer width,
+            @ApiIgnore WebRequest webRequest) {
+
+        if (width == null) {
+            // Resolve the image first so a stale ETag of a deleted image gets an error rather than a 304
+            ImageResponse image = imageService.downloadImage(id);
+            String eTag = ETagUtil.ofImage(id);
+
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified(eTag);
+            }
+
+            return imageResponse(eTag, image);
+        }
 
-        byte[] imageData = imageService.downloadImage(id);
+        Optional<ImageResponse> variant = imageVariantService.downloadImageVariant(id, width);
+
+        if (variant.isEmpty()) {
+            // The variant is still being generated, so the original must not be cached under this URL
+            ImageResponse original = imageService.downloadImage(id);
+
+            return ResponseEntity.status(HttpStatus.OK)
+                    .contentType(mediaTypeOf(original.getType()))
+                    .cacheControl(CacheControl.noCache())
+                    .headers(this::addContentSecurityHeaders)
+                    .body(original.getContent());
+        }
+
+        String eTag = ETagUtil.ofImage(id, width);
+
+        if (webRequest.checkNotModified(eTag)) {
+            return notModified(eTag);
+        }
+
+        return imageResponse(eTag, variant.get());
+    }
+
+    private ResponseEntity<Resource> notModified(String eTag) {
+
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL)
+                .build();
+    }
+
+    private ResponseEntity<Resource> imageResponse(String eTag, ImageResponse image) {
 
         return ResponseEntity.status(HttpStatus.OK)
-                .contentType(MediaType.valueOf("image/png"))
-                .body(imageData);
+                .contentType(mediaTypeOf(image.getType()))
+                .eTag(eTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL)
+                .headers(this::addContentSecurityHeaders)
+                .body(image.getContent());
+    }
+
+    // Uploaded types include SVG, so nothing outside image/* is served as is and scripts in images never run
+    private void addContentSecurityHeaders(HttpHeaders headers) {
+
+        headers.set("X-Content-Type-Options", "nosniff");
+        headers.set("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox");
+    }
+
+    private static MediaType mediaTypeOf(String type) {
+
+        try {
+            MediaType mediaType = type == null ? null : MediaType.parseMediaType(type);
+
+            return mediaType != null && "image".equals(mediaType.getType()) && !mediaType.isWildcardSubtype()
+                    ? mediaType
+                    : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
     }
 
 }
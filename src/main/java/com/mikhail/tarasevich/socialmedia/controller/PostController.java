@@ -1,6 +1,8 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.mikhail.tarasevich.socialmedia.security.CurrentUser;
 import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.ImageVariantService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -15,8 +17,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import springfox.documentation.annotations.ApiIgnore;
 
-import java.security.Principal;
-
 @RestController
 @RequestMapping("/api/v1/post")
 @Api(tags = "Контроллер для добавления изображений к публикации")
@@ -24,18 +24,22 @@ public class PostController {
 
     private final ImageService imageService;
 
+    private final ImageVariantService imageVariantService;
+
     @Autowired
-    public PostController(ImageService imageService) {
+    public PostController(ImageService imageService, ImageVariantService imageVariantService) {
         this.imageService = imageService;
+        this.imageVariantService = imageVariantService;
     }
 
     @PostMapping("/{id}/image")
     @ApiOperation(value = "Добавить изображение к публикации", notes = "Загружает изображение в базу данных и ассоциирует его с существующим постом по ID (Метод работает при передачи картинки из postman)")
-    public ResponseEntity<String> addImageToPost(@ApiIgnore Principal user,
+    public ResponseEntity<String> addImageToPost(@ApiIgnore @CurrentUser int userId,
                                                  @ApiParam(value = "ID публикации в базе данных", example = "1", required = true) @PathVariable("id") int id,
                                                  @ApiParam(value = "Прикрепленная картинка", required = true) @RequestParam("image") MultipartFile image) {
 
-        int imageId = imageService.uploadImage(image, id, user.getName());
+        int imageId = imageService.uploadImage(image, id, userId);
+        imageVariantService.scheduleVariants(imageId);
 
         return ResponseEntity.status(HttpStatus.OK).body("Image with id = " + imageId +
                 " was successfully added to post with id = " + id);
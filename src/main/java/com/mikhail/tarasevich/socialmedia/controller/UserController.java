@@ -1,20 +1,28 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.mikhail.tarasevich.socialmedia.dto.MessageRequest;
 import com.mikhail.tarasevich.socialmedia.dto.MessageResponse;
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.security.CurrentUser;
 import com.mikhail.tarasevich.socialmedia.service.MessageService;
 import com.mikhail.tarasevich.socialmedia.service.PostService;
 import com.mikhail.tarasevich.socialmedia.service.UserService;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.util.BindingResultValidator;
+import com.mikhail.tarasevich.socialmedia.util.ETagUtil;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
+import com.mikhail.tarasevich.socialmedia.util.PageableService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,10 +34,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
-import java.security.Principal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -40,152 +50,196 @@ public class UserController {
     private final UserService userService;
     private final PostService postService;
     private final MessageService messageService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService, PostService postService, MessageService messageService) {
+    public UserController(UserService userService, PostService postService, MessageService messageService,
+                          ObjectMapper objectMapper) {
         this.userService = userService;
         this.postService = postService;
         this.messageService = messageService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/")
     @ApiOperation(value = "Показать персональные данные аутентифицированного пользователя")
-    UserResponse showUser(@ApiIgnore Principal user) {
+    UserResponse showUser(@ApiIgnore @CurrentUser UserResponse user) {
 
-        return userService.findUserByEmail(user.getName());
+        return user;
     }
 
     @GetMapping("/friend")
     @ApiOperation(value = "Показать список друзей аутентифицированного пользователя")
-    List<UserResponse> showUserFriends(@ApiIgnore Principal user) {
+    List<UserResponse> showUserFriends(@ApiIgnore @CurrentUser int userId) {
 
-        return userService.findUserFriends(userService.findUserByEmail(user.getName()).getId());
+        return userService.findUserFriends(userId);
     }
 
     @GetMapping("/friend/request")
     @ApiOperation(value = "Показать список запросов в друзья аутентифицированного пользователя")
-    List<UserResponse> showUserFriendRequests(@ApiIgnore Principal user) {
+    List<UserResponse> showUserFriendRequests(@ApiIgnore @CurrentUser int userId) {
 
-        return userService.findUserFriendRequests(userService.findUserByEmail(user.getName()).getId());
+        return userService.findUserFriendRequests(userId);
     }
 
     @PostMapping("/friend/request")
     @ApiOperation(value = "Отправить запрос в друзья другому пользователю")
-    ResponseEntity<String> sendFriendRequest(@ApiIgnore Principal user,
+    ResponseEntity<String> sendFriendRequest(@ApiIgnore @CurrentUser int userId,
                                              @ApiParam(value = "ID пользователя, которому будет отправлен запрос в друзья", example = "4", required = true) @RequestParam("friendId") int friendId) {
 
-        UserResponse userResponse = userService.findUserByEmail(user.getName());
+        userService.sendFriendRequest(userId, friendId);
 
-        userService.sendFriendRequest(userResponse.getId(), friendId);
-
-        return ResponseEntity.status(HttpStatus.OK).body("Friend request from user with id = " + userResponse.getId() +
+        return ResponseEntity.status(HttpStatus.OK).body("Friend request from user with id = " + userId +
                 " to user with id = " + friendId + " has been successfully sent");
     }
 
     @PatchMapping("/friend/accept")
     @ApiOperation(value = "Принять запрос в друзья от пользователя")
-    ResponseEntity<String> acceptFriendRequest(@ApiIgnore Principal user,
+    ResponseEntity<String> acceptFriendRequest(@ApiIgnore @CurrentUser int userId,
                                                @ApiParam(value = "ID пользователя, чей запрос в друзья будет принят", example = "4", required = true) @RequestParam("friendId") int friendId) {
 
-        UserResponse userResponse = userService.findUserByEmail(user.getName());
-
-        userService.acceptFriendRequest(userResponse.getId(), friendId);
+        userService.acceptFriendRequest(userId, friendId);
 
         return ResponseEntity.status(HttpStatus.OK).body("Friend request from user with id = " + friendId +
-                " to user with id = " + userResponse.getId() + " has been accepted");
+                " to user with id = " + userId + " has been accepted");
     }
 
     @PatchMapping("/friend/reject")
     @ApiOperation(value = "Отклонить запрос в друзья от пользователя")
-    ResponseEntity<String> rejectFriendRequest(@ApiIgnore Principal user,
+    ResponseEntity<String> rejectFriendRequest(@ApiIgnore @CurrentUser int userId,
                                                @ApiParam(value = "ID пользователя, чей запрос в друзья будет откланен", example = "5", required = true) @RequestParam("friendId") int friendId) {
 
-        UserResponse userResponse = userService.findUserByEmail(user.getName());
-
-        userService.rejectFriendRequest(userResponse.getId(), friendId);
+        userService.rejectFriendRequest(userId, friendId);
 
         return ResponseEntity.status(HttpStatus.OK).body("Friend request from user with id = " + friendId +
-                " to user with id = " + userResponse.getId() + " has been rejected");
+                " to user with id = " + userId + " has been rejected");
     }
 
     @DeleteMapping("/friend")
     @ApiOperation(value = "Удалить пользователя из списка друзей", notes = "Удаленный из списка друзей пользователь останется подписчиком")
-    ResponseEntity<String> deleteUserFromFriends(@ApiIgnore Principal user,
+    ResponseEntity<String> deleteUserFromFriends(@ApiIgnore @CurrentUser int userId,
                                                  @ApiParam(value = "ID пользователя, кто будет удален из списка друзей пользователя", example = "5", required = true) @RequestParam("friendId") int friendId) {
 
-        UserResponse userResponse = userService.findUserByEmail(user.getName());
+        userService.deleteUserFromFriends(userId, friendId);
 
-        userService.deleteUserFromFriends(userResponse.getId(), friendId);
-
-        return ResponseEntity.status(HttpStatus.OK).body("User with id = " + userResponse.getId() +
+        return ResponseEntity.status(HttpStatus.OK).body("User with id = " + userId +
                 " and user with id = " + friendId + " are no longer friends");
     }
 
     @GetMapping("/subscription")
     @ApiOperation(value = "Показать список пользователей на которых подписан аутентифицированный пользователь")
-    List<UserResponse> showUserSubscriptions(@ApiIgnore Principal user) {
+    List<UserResponse> showUserSubscriptions(@ApiIgnore @CurrentUser int userId) {
 
-        return userService.findUserSubscriptions(userService.findUserByEmail(user.getName()).getId());
+        return userService.findUserSubscriptions(userId);
     }
 
     @GetMapping("/post")
-    @ApiOperation(value = "Показать список публикаций, опубликовнных аутентифицированным пользователем")
-    public List<PostResponse> showAllUserPosts(@ApiIgnore Principal user) {
+    @ApiOperation(value = "Показать список публикаций, опубликовнных аутентифицированным пользователем", notes = "Публикации выводятся постранично и будут отсортированы по времени создания от болле свежих к более старым. " +
+            "Курсор следующей страницы возвращается в заголовке " + KeysetCursor.NEXT_CURSOR_HEADER)
+    public ResponseEntity<List<PostResponse>> showAllUserPosts(@ApiIgnore @CurrentUser int userId,
+                                                               @ApiParam(value = "Количество публикаций на странице", example = "10") @RequestParam(value = "itemsPerPage", defaultValue = "10") int itemsPerPage,
+                                                               @ApiParam(value = "Курсор из заголовка " + KeysetCursor.NEXT_CURSOR_HEADER + " предыдущего ответа") @RequestParam(value = "cursor", required = false) String cursor) {
+
+        List<PostResponse> posts = postService.findAllPostsRelateToUser(userId, itemsPerPage,
+                cursor == null ? null : KeysetCursor.decode(cursor));
+
+        String nextCursor = KeysetCursor.next(posts, PageableService.checkItemsPerPage(itemsPerPage),
+                PostResponse::getCreatedAt, PostResponse::getId);
+
+        return postsResponse(posts, nextCursor);
+    }
+
+    @GetMapping(value = "/post/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Выгрузить все публикации аутентифицированного пользователя потоком", notes = "Публикации передаются в формате NDJSON, по одной на строку, от более свежих к более старым")
+    public ResponseEntity<StreamingResponseBody> streamAllUserPosts(@ApiIgnore @CurrentUser int userId) {
 
-        return postService.findAllPostsRelateToUser(userService.findUserByEmail(user.getName()).getId());
+        ObjectWriter writer = objectMapper.writerFor(PostResponse.class);
+
+        StreamingResponseBody body = outputStream -> postService.streamAllPostsRelateToUser(userId, post -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(post));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/post/subscription")
-    @ApiOperation(value = "Показать список последних публикаций, опубликовнных подписчиками, аутентифицированным пользователем", notes = "Публикации выводятся постранично и будут отсортированы по времени создания от болле свежих к более старым")
-    public List<PostResponse> showLastPostOfSubscriptions(@ApiIgnore Principal user,
+    @ApiOperation(value = "Показать список последних публикаций, опубликовнных подписчиками, аутентифицированным пользователем", notes = "Публикации выводятся постранично и будут отсортированы по времени создания от болле свежих к более старым. " +
+            "Курсор следующей страницы возвращается в заголовке " + KeysetCursor.NEXT_CURSOR_HEADER)
+    public ResponseEntity<List<PostResponse>> showLastPostOfSubscriptions(@ApiIgnore @CurrentUser int userId,
                                                           @ApiParam(value = "Количество публикаций на странице", example = "3", required = true) @RequestParam("itemsPerPage") int itemsPerPage,
-                                                          @ApiParam(value = "Номер страницы (отсчет от 1 стр.)", example = "1", required = true) @RequestParam("page") int page) {
+                                                          @ApiParam(value = "Номер страницы (отсчет от 1 стр.), игнорируется при наличии курсора", example = "1") @RequestParam(value = "page", defaultValue = "1") int page,
+                                                          @ApiParam(value = "Курсор из заголовка " + KeysetCursor.NEXT_CURSOR_HEADER + " предыдущего ответа") @RequestParam(value = "cursor", required = false) String cursor) {
+
+        List<PostResponse> posts = cursor == null
+                ? postService.findLastPostOfSubscriptions(userId, itemsPerPage, page)
+                : postService.findLastPostOfSubscriptions(userId, itemsPerPage, KeysetCursor.decode(cursor));
+
+        String nextCursor = KeysetCursor.next(posts, PageableService.checkItemsPerPage(itemsPerPage),
+                PostResponse::getCreatedAt, PostResponse::getId);
+
+        return postsResponse(posts, nextCursor);
+    }
+
+    private static ResponseEntity<List<PostResponse>> postsResponse(List<PostResponse> posts, String nextCursor) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ETagUtil.ofPosts(posts))
+                .cacheControl(CacheControl.noCache().cachePrivate());
+
+        if (nextCursor != null) {
+            response.header(KeysetCursor.NEXT_CURSOR_HEADER, nextCursor);
+        }
 
-        return postService.findLastPostOfSubscriptions(userService.findUserByEmail(user.getName()).getId(), itemsPerPage, page);
+        return response.body(posts);
     }
 
     @PostMapping("/post")
     @ApiOperation(value = "Создать новую публикацию")
-    public ResponseEntity<String> addPost(@ApiIgnore Principal user,
+    public ResponseEntity<String> addPost(@ApiIgnore @CurrentUser int userId,
                                           @ApiParam(value = "Данные о публикации", required = true) @RequestBody @Valid PostRequest request,
                                           BindingResult bindingResult) {
 
         BindingResultValidator.checkErrorsInBindingResult(bindingResult, PostNotValidDataException.class);
 
-        PostResponse response = postService.createPost(request, user.getName());
+        PostResponse response = postService.createPost(request, userId);
 
         return ResponseEntity.status(HttpStatus.OK).body("Post was successfully saved with id = " + response.getId());
     }
 
     @PutMapping("/post")
     @ApiOperation(value = "Редактировать публикацию")
-    public ResponseEntity<String> updatePost(@ApiIgnore Principal user,
+    public ResponseEntity<String> updatePost(@ApiIgnore @CurrentUser int userId,
                                              @ApiParam(value = "Данные о публикации с указанием ID редактируемой публикации", required = true) @RequestBody @Valid PostRequest request,
                                              BindingResult bindingResult) {
 
         BindingResultValidator.checkErrorsInBindingResult(bindingResult, PostNotValidDataException.class);
 
-        postService.updatePost(request, user.getName());
+        postService.updatePost(request, userId);
 
         return ResponseEntity.status(HttpStatus.OK).body("Post was successfully update");
     }
 
     @GetMapping("/message")
     @ApiOperation(value = "Показать историю сообщений между аутентифицированным пользователем и другим пользователем", notes = "Сообщения отсортированы по дате от более свежих")
-    List<MessageResponse> showChatHistory(@ApiIgnore Principal user,
+    List<MessageResponse> showChatHistory(@ApiIgnore @CurrentUser int userId,
                                           @ApiParam(value = "ID пользователя", example = "2", required = true) @RequestParam("friendId") int friendId) {
 
-        return messageService.findMessagesRelateToUsers(userService.findUserByEmail(user.getName()).getId(), friendId);
+        return messageService.findMessagesRelateToUsers(userId, friendId);
     }
 
     @PostMapping("/message")
     @ApiOperation(value = "Отправить сообщение от атентифицированного пользователя другу")
-    ResponseEntity<String> sendMessageToFriend(@ApiIgnore Principal user,
+    ResponseEntity<String> sendMessageToFriend(@ApiIgnore @CurrentUser int userId,
                                                @ApiParam(value = "ID пользователя", example = "2", required = true) @RequestParam("friendId") int friendId,
                                                @ApiParam(value = "Содержание сообщения", example = "Hello!", required = true) @RequestParam("message") String message) {
 
         messageService.createMessage(MessageRequest.builder()
-                .withFromUserId(userService.findUserByEmail(user.getName()).getId())
+                .withFromUserId(userId)
                 .withToUserId(friendId)
                 .withMessage(message)
                 .build());
@@ -0,0 +1,19 @@
+package com.mikhail.tarasevich.socialmedia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImageResponse {
+
+    private Resource content;
+
+    private String type;
+
+}
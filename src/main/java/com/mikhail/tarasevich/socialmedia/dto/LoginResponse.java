@@ -13,4 +13,6 @@ public class LoginResponse {
 
     private String token;
 
+    private String refreshToken;
+
 }
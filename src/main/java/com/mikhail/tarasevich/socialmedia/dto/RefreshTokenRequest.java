@@ -0,0 +1,21 @@
+package com.mikhail.tarasevich.socialmedia.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@ApiModel(description = "Класс для обновления токена доступа")
+public class RefreshTokenRequest {
+
+    @NotEmpty(message = "Refresh token should not be empty")
+    @ApiModelProperty(value = "Refresh token, полученный при аутентификации", required = true)
+    private String refreshToken;
+
+}
@@ -7,6 +7,9 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -28,7 +31,7 @@ public class Image {
     @Column(name = "id")
     private int id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", referencedColumnName = "id")
     private Post post;
 
@@ -42,4 +45,14 @@ public class Image {
     @Column(name = "data")
     private byte[] data;
 
+    @Column(name = "blob_key")
+    private String blobKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "codec")
+    private ImageCodec codec;
+
+    @Column(name = "original_size")
+    private Integer originalSize;
+
 }
@@ -0,0 +1,8 @@
+package com.mikhail.tarasevich.socialmedia.entity;
+
+public enum ImageCodec {
+
+    IDENTITY,
+    DEFLATE
+
+}
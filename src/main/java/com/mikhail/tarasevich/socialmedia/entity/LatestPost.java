@@ -0,0 +1,32 @@
+package com.mikhail.tarasevich.socialmedia.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Builder(setterPrefix = "with")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "latest_posts")
+public class LatestPost {
+
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    @Column(name = "post_id")
+    private int postId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+}
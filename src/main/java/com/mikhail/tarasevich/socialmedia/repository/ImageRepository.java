@@ -1,10 +1,12 @@
 package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostImageIdView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ImageRepository extends JpaRepository<Image, Integer> {
@@ -12,4 +14,15 @@ public interface ImageRepository extends JpaRepository<Image, Integer> {
     @Query(value = "SELECT id FROM images WHERE post_id = :id", nativeQuery = true)
     List<Integer> findImagesIdRelateToPost(@Param("id") int id);
 
+    @Query(value = "SELECT id FROM images WHERE blob_key IS NULL AND data IS NOT NULL ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Integer> findIdsOfImagesStoredInDb(@Param("limit") int limit);
+
+    // images.data is a large object reference; nulling the column alone leaves the object in pg_largeobject
+    @Query(value = "SELECT lo_unlink(data) FROM images WHERE id IN :ids AND data IS NOT NULL", nativeQuery = true)
+    List<Integer> unlinkDataOfImages(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT i.post.id AS postId, i.id AS imageId FROM Image i WHERE i.post.id IN :postIds ORDER BY i.id")
+    List<PostImageIdView> findImageIdsByPostIds(@Param("postIds") Collection<Integer> postIds);
+
 }
@@ -0,0 +1,19 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.entity.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Integer> {
+
+    @Query("SELECT v FROM ImageVariant v WHERE v.image.id = :imageId AND v.width = :width")
+    Optional<ImageVariant> findByImageIdAndWidth(@Param("imageId") int imageId, @Param("width") int width);
+
+    @Query("SELECT v.width FROM ImageVariant v WHERE v.image.id = :imageId ORDER BY v.width")
+    List<Integer> findWidthsByImageId(@Param("imageId") int imageId);
+
+}
@@ -0,0 +1,47 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.entity.LatestPost;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LatestPostRepository extends JpaRepository<LatestPost, Integer> {
+
+    @Query(value = "SELECT lp.* FROM subscribers s " +
+            "INNER JOIN latest_posts lp ON s.sub_user_id = lp.user_id " +
+            "WHERE s.user_id = :userId " +
+            "ORDER BY lp.created_at DESC, lp.post_id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<LatestPost> findLatestPostsOfSubscriptions(@Param("userId") int userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO latest_posts (user_id, post_id, created_at) VALUES (:userId, :postId, :createdAt) " +
+            "ON CONFLICT (user_id) DO " +
+            "UPDATE SET post_id = EXCLUDED.post_id, created_at = EXCLUDED.created_at " +
+            "WHERE latest_posts.created_at <= EXCLUDED.created_at", nativeQuery = true)
+    void upsertLatestPost(@Param("userId") int userId, @Param("postId") int postId,
+                          @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM latest_posts WHERE post_id = :postId", nativeQuery = true)
+    int deleteLatestPostByPostId(@Param("postId") int postId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO latest_posts (user_id, post_id, created_at) " +
+            "SELECT p.user_id, p.id, p.created_at FROM posts p " +
+            "WHERE p.user_id = :userId AND p.id <> :excludedPostId " +
+            "ORDER BY p.created_at DESC, p.id DESC " +
+            "LIMIT 1", nativeQuery = true)
+    void insertLatestPostOfUser(@Param("userId") int userId, @Param("excludedPostId") int excludedPostId);
+
+}
@@ -1,35 +1,79 @@
 package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.entity.Post;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface PostRepository extends JpaRepository<Post, Integer> {
 
-    List<Post> findPostsByUserId(int id);
+    @Query(value = "SELECT p.id AS id, p.user_id AS \"userId\", p.header AS header, p.content AS content, " +
+            "p.created_at AS \"createdAt\" " +
+            "FROM posts p " +
+            "WHERE p.user_id = :userId " +
+            "ORDER BY p.created_at DESC, p.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<PostView> findPostViewsByUserId(@Param("userId") int userId, @Param("limit") int limit);
 
-    @Query(value = "SELECT p.* " +
-            "FROM subscribers s " +
-            "INNER JOIN " +
-            "(SELECT user_id, MAX(created_at) AS max_created_at FROM posts GROUP BY user_id) " +
-            "AS latest_posts ON s.sub_user_id = latest_posts.user_id " +
-            "INNER JOIN posts p ON latest_posts.user_id = p.user_id AND latest_posts.max_created_at = p.created_at " +
-            "WHERE s.user_id = :userId", nativeQuery = true)
-    List<Post> findLatestPostsOfSubscribers(@Param("userId") int userId);
-
-    @Query(value = "SELECT p.* " +
+    @Query(value = "SELECT p.id AS id, p.user_id AS \"userId\", p.header AS header, p.content AS content, " +
+            "p.created_at AS \"createdAt\" " +
+            "FROM posts p " +
+            "WHERE p.user_id = :userId " +
+            "AND (p.created_at < :createdAt OR (p.created_at = :createdAt AND p.id < :postId)) " +
+            "ORDER BY p.created_at DESC, p.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<PostView> findPostViewsByUserIdBefore(@Param("userId") int userId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("postId") int postId, @Param("limit") int limit);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT p.id AS id, p.user.id AS userId, p.header AS header, p.content AS content, " +
+            "p.createdAt AS createdAt FROM Post p WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    Stream<PostView> streamPostViewsByUserId(@Param("userId") int userId);
+
+    @Query("SELECT p.id AS id, p.user.id AS userId, p.header AS header, p.content AS content, " +
+            "p.createdAt AS createdAt FROM Post p WHERE p.id = :id")
+    Optional<PostView> findPostViewById(@Param("id") int id);
+
+    @Query("SELECT p.id AS id, p.user.id AS userId, p.header AS header, p.content AS content, " +
+            "p.createdAt AS createdAt FROM Post p WHERE p.id IN :ids")
+    List<PostView> findPostViewsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query(value = "SELECT p.id AS id, p.user_id AS \"userId\", p.header AS header, p.content AS content, " +
+            "p.created_at AS \"createdAt\" " +
             "FROM subscribers s " +
-            "INNER JOIN " +
-            "(SELECT user_id, MAX(created_at) AS max_created_at FROM posts GROUP BY user_id) " +
-            "AS latest_posts ON s.sub_user_id = latest_posts.user_id " +
-            "INNER JOIN posts p ON latest_posts.user_id = p.user_id AND latest_posts.max_created_at = p.created_at " +
+            "INNER JOIN latest_posts lp ON s.sub_user_id = lp.user_id " +
+            "INNER JOIN posts p ON lp.post_id = p.id " +
             "WHERE s.user_id = :userId " +
-            "ORDER BY p.created_at DESC " +
+            "ORDER BY lp.created_at DESC, lp.post_id DESC " +
             "LIMIT :limit OFFSET :offset",
             nativeQuery = true)
-    List<Post> findLatestPostsOfSubscribers(@Param("userId") int userId, @Param("limit") int limit, @Param("offset") int offset);
+    List<PostView> findLatestPostsOfSubscribers(@Param("userId") int userId, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = "SELECT p.id AS id, p.user_id AS \"userId\", p.header AS header, p.content AS content, " +
+            "p.created_at AS \"createdAt\" " +
+            "FROM subscribers s " +
+            "INNER JOIN latest_posts lp ON s.sub_user_id = lp.user_id " +
+            "INNER JOIN posts p ON lp.post_id = p.id " +
+            "WHERE s.user_id = :userId " +
+            "AND (lp.created_at < :createdAt OR (lp.created_at = :createdAt AND lp.post_id < :postId)) " +
+            "ORDER BY lp.created_at DESC, lp.post_id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<PostView> findLatestPostsOfSubscribersBefore(@Param("userId") int userId, @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("postId") int postId, @Param("limit") int limit);
 
 }
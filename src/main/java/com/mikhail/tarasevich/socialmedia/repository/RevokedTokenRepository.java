@@ -0,0 +1,28 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Integer> {
+
+    Optional<RevokedToken> findByTokenKey(String tokenKey);
+
+    @Query("SELECT r.tokenKey FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveTokenKeys(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpiredTokens(@Param("now") LocalDateTime now);
+
+}
@@ -1,6 +1,7 @@
 package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.projection.UserIdentityView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -27,7 +28,8 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findUserByEmail(@Param("email") String email);
 
-    Optional<User> findUserByName(@Param("name") String name);
+    @Query("SELECT u.name AS name, u.email AS email FROM User u WHERE u.name = :name OR u.email = :email")
+    List<UserIdentityView> findUserIdentitiesByNameOrEmail(@Param("name") String name, @Param("email") String email);
 
     @Query(value = "SELECT * FROM users u " +
             "WHERE u.id IN (SELECT sub_user_id FROM subscribers WHERE user_id = 1 AND is_accepted = 'PENDING') " +
@@ -37,6 +39,9 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     @Query(value = "SELECT * FROM users u WHERE u.id IN (SELECT sub_user_id FROM subscribers WHERE user_id = :id)", nativeQuery = true)
     List<User> findUserSubscriptionsById(@Param("id") int id);
 
+    @Query(value = "SELECT s.user_id FROM subscribers s WHERE s.sub_user_id = :id", nativeQuery = true)
+    List<Integer> findSubscriberIdsOfUser(@Param("id") int id);
+
     @Modifying
     @Transactional
     @Query(value = "INSERT INTO subscribers (user_id, sub_user_id, is_accepted) VALUES (:friendId, :id, 'PENDING') " +
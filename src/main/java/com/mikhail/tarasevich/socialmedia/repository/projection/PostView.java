@@ -0,0 +1,17 @@
+package com.mikhail.tarasevich.socialmedia.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface PostView {
+
+    Integer getId();
+
+    Integer getUserId();
+
+    String getHeader();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+
+}
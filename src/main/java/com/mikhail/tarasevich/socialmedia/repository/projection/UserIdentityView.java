@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.socialmedia.repository.projection;
+
+public interface UserIdentityView {
+
+    String getName();
+
+    String getEmail();
+
+}
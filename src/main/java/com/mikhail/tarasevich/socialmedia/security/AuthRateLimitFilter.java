@@ -0,0 +1,235 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikhail.tarasevich.socialmedia.util.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS =
+            Set.of("/api/v1/auth/login", "/api/v1/auth/registration", "/api/v1/auth/refresh");
+    private static final Set<String> EMAIL_PATHS = Set.of("/api/v1/auth/login", "/api/v1/auth/registration");
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final GcraRateLimiter ipLimiter;
+    private final GcraRateLimiter emailLimiter;
+    private final int maxBodyBytes;
+    private final ObjectMapper objectMapper;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public AuthRateLimitFilter(@Value("${auth.rate-limit.ip.requests-per-minute:30}") int ipRequestsPerMinute,
+                               @Value("${auth.rate-limit.ip.burst:10}") int ipBurst,
+                               @Value("${auth.rate-limit.email.requests-per-minute:5}") int emailRequestsPerMinute,
+                               @Value("${auth.rate-limit.email.burst:5}") int emailBurst,
+                               @Value("${auth.rate-limit.max-buckets:100000}") int maxBuckets,
+                               @Value("${auth.rate-limit.max-body-bytes:8192}") int maxBodyBytes,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.ipLimiter = new GcraRateLimiter(ipRequestsPerMinute, ipBurst, maxBuckets);
+        this.emailLimiter = new GcraRateLimiter(emailRequestsPerMinute, emailBurst, maxBuckets);
+        this.maxBodyBytes = maxBodyBytes;
+        this.objectMapper = objectMapper;
+
+        this.rejectedCounter = Counter.builder("auth.rate-limit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .register(meterRegistry);
+        Gauge.builder("auth.rate-limit.buckets", () -> ipLimiter.size() + emailLimiter.size())
+                .description("Rate limit buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !LIMITED_PATHS.contains(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long now = System.nanoTime();
+
+        long waitNanos = ipLimiter.tryAcquire(request.getRemoteAddr(), now);
+
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+
+        // Bodies the per-email limit cannot inspect are refused, otherwise padding them would bypass it
+        if (body.length > maxBodyBytes) {
+            sendError(response, HttpStatus.PAYLOAD_TOO_LARGE, "The request body exceeds " + maxBodyBytes + " bytes");
+            return;
+        }
+
+        JsonNode json = parse(body);
+
+        if (json == null) {
+            sendError(response, HttpStatus.BAD_REQUEST, "The request body is not valid JSON");
+            return;
+        }
+
+        if (EMAIL_PATHS.contains(pathOf(request))) {
+            JsonNode email = json.path("email");
+
+            if (!email.isTextual()) {
+                sendError(response, HttpStatus.BAD_REQUEST, "The request body must contain an email");
+                return;
+            }
+
+            waitNanos = emailLimiter.tryAcquire(email.asText().trim().toLowerCase(Locale.ROOT), now);
+
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        ipLimiter.evictIdle(now);
+        emailLimiter.evictIdle(now);
+    }
+
+    private JsonNode parse(byte[] body) {
+
+        try {
+            JsonNode json = objectMapper.readTree(body);
+
+            return json != null && json.isObject() ? json : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Normalised the way the dispatcher resolves it: decoded, without path parameters or duplicate slashes, and
+    // without the trailing slash that Spring MVC still matches
+    private static String pathOf(HttpServletRequest request) {
+
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        int end = path.length();
+
+        while (end > 1 && path.charAt(end - 1) == '/') end--;
+
+        return path.substring(0, end);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+
+        rejectedCounter.increment();
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        sendError(response, HttpStatus.TOO_MANY_REQUESTS, "Too many authentication attempts. Try again later.");
+    }
+
+    private void sendError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.builder()
+                .withMessage(message)
+                .withTimestamp(LocalDateTime.now())
+                .build());
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream inputStream;
+
+        // The body has been read up to end of stream, so the buffered bytes are all that is left to serve
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+
+            ByteArrayInputStream buffered = new ByteArrayInputStream(body);
+
+            this.inputStream = new ServletInputStream() {
+
+                @Override
+                public int read() {
+                    return buffered.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return buffered.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return buffered.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+public class BCryptStrengthCalibrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_ROUNDS = 5;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+
+        String salt = BCrypt.gensalt(PROBE_STRENGTH);
+
+        BCrypt.hashpw("calibration", salt);
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double probeMillis = Math.max(bestNanos, 1) / 1_000_000.0;
+
+        int strength = PROBE_STRENGTH;
+        while (strength < maxStrength && probeMillis * (1L << (strength + 1 - PROBE_STRENGTH)) <= targetMillis) {
+            strength++;
+        }
+
+        strength = Math.max(minStrength, Math.min(maxStrength, strength));
+
+        LOGGER.info("BCrypt strength calibrated to {} (strength {} took {} ms, target is {} ms)",
+                strength, PROBE_STRENGTH, String.format("%.2f", probeMillis), targetMillis);
+
+        return strength;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.service.UserService;
+import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.security.Principal;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".CURRENT_USER";
+
+    private final UserService userService;
+
+    @Autowired
+    public CurrentUserArgumentResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+
+        Class<?> type = parameter.getParameterType();
+
+        return parameter.hasParameterAnnotation(CurrentUser.class) &&
+                (type == int.class || type == Integer.class || type == UserResponse.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+
+        UserResponse user = (UserResponse) webRequest.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (user == null) {
+            user = resolveUser(webRequest.getUserPrincipal());
+            webRequest.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return parameter.getParameterType() == UserResponse.class ? user : user.getId();
+    }
+
+    private UserResponse resolveUser(Principal principal) {
+
+        if (principal == null) {
+            throw new AuthenticationDataException("There is no authenticated user in the request");
+        }
+
+        if (principal instanceof Authentication &&
+                ((Authentication) principal).getPrincipal() instanceof UserSecurityDetails) {
+
+            UserSecurityDetails userDetails = (UserSecurityDetails) ((Authentication) principal).getPrincipal();
+
+            return UserResponse.builder()
+                    .withId(userDetails.getId())
+                    .withName(userDetails.getName())
+                    .withEmail(userDetails.getUsername())
+                    .build();
+        }
+
+        return userService.findUserByEmail(principal.getName());
+    }
+
+}
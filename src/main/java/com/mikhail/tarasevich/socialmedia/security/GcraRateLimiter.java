@@ -0,0 +1,58 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GcraRateLimiter {
+
+    private static final long ALLOWED = 0L;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    // A bucket untouched for the burst window is full again, so dropping it loses nothing;
+    // the size bound evicts per key and never merges unrelated clients into one bucket
+    public GcraRateLimiter(int requestsPerMinute, int burst, int maxBuckets) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(burstToleranceNanos, TimeUnit.NANOSECONDS)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public long tryAcquire(String key, long nowNanos) {
+
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(nowNanos));
+
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTat - burstToleranceNanos - nowNanos;
+
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+
+            if (bucket.compareAndSet(tat, newTat)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    public void evictIdle(long nowNanos) {
+        buckets.asMap().values().removeIf(bucket -> bucket.get() <= nowNanos);
+        buckets.cleanUp();
+    }
+
+    public int size() {
+        buckets.cleanUp();
+        return (int) buckets.estimatedSize();
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.mikhail.tarasevich.socialmedia.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mikhail.tarasevich.socialmedia.security.JWTTokenCache.VerifiedToken;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
 import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,12 +24,16 @@ public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
     private final UserDetailsService userDetailsService;
-
+    private final JWTTokenCache tokenCache;
+    private final TokenRevocationService revocationService;
 
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService, JWTTokenCache tokenCache,
+                     TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.tokenCache = tokenCache;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -42,9 +49,29 @@ public class JWTFilter extends OncePerRequestFilter {
                 throw new AuthenticationDataException ("Invalid JWT token in barer header");
             } else {
                 try {
-                    String email = jwtUtil.validateTokenAndRetrieveClaims(jwt);
+                    VerifiedToken verifiedToken = tokenCache.get(jwt);
+
+                    if (verifiedToken == null) {
+                        DecodedJWT decodedJWT = jwtUtil.verifyToken(jwt);
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                        UserDetails principal;
+                        if (jwtUtil.isSelfContained(decodedJWT)) {
+                            principal = jwtUtil.retrievePrincipal(decodedJWT);
+                        } else {
+                            principal = userDetailsService.loadUserByUsername(decodedJWT.getClaim("email").asString());
+                        }
+
+                        verifiedToken = new VerifiedToken(principal, decodedJWT.getId(),
+                                decodedJWT.getIssuedAtAsInstant(), decodedJWT.getExpiresAtAsInstant());
+                        tokenCache.put(jwt, verifiedToken);
+                    }
+
+                    UserDetails userDetails = verifiedToken.getUserDetails();
+
+                    if (revocationService.isRevoked(verifiedToken.getJwtId(), userDetails.getUsername(),
+                            verifiedToken.getIssuedAt())) {
+                        throw new AuthenticationDataException("JWT token has been revoked. Login again.");
+                    }
 
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, userDetails.getPassword(), userDetails.getAuthorities());
@@ -0,0 +1,97 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+public class JWTTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    @Autowired
+    public JWTTokenCache(@Value("${jwt.cache.maximum-size:10000}") long maximumSize, MeterRegistry meterRegistry) {
+        this(maximumSize, meterRegistry, Ticker.systemTicker());
+    }
+
+    JWTTokenCache(long maximumSize, MeterRegistry meterRegistry, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+    }
+
+    public VerifiedToken get(String token) {
+
+        return cache.getIfPresent(token);
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+
+        if (verifiedToken.expiresAt != null && verifiedToken.expiresAt.isAfter(Instant.now())) {
+            cache.put(token, verifiedToken);
+        }
+    }
+
+    public static final class VerifiedToken {
+
+        private final UserDetails userDetails;
+        private final String jwtId;
+        private final Instant issuedAt;
+        private final Instant expiresAt;
+
+        public VerifiedToken(UserDetails userDetails, String jwtId, Instant issuedAt, Instant expiresAt) {
+            this.userDetails = userDetails;
+            this.jwtId = jwtId;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public UserDetails getUserDetails() {
+            return userDetails;
+        }
+
+        public String getJwtId() {
+            return jwtId;
+        }
+
+        public Instant getIssuedAt() {
+            return issuedAt;
+        }
+
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verifiedToken, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), verifiedToken.expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verifiedToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
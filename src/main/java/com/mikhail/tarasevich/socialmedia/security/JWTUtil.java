@@ -1,45 +1,121 @@
 package com.mikhail.tarasevich.socialmedia.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JWTUtil {
 
-    @Value("${jwt_secret}")
-    private String secret;
+    private static final String SUBJECT = "User details";
+    private static final String ISSUER = "social-media-app";
+    private static final String DEFAULT_KEY_ID = "default";
 
-    public String generateToken (String email) {
+    private final boolean selfContained;
+    private final long lifetimeMinutes;
+    private final String activeKeyId;
+    private final Algorithm signingAlgorithm;
+    private final Map<String, JWTVerifier> verifiers;
+    private final JWTVerifier legacyVerifier;
 
-        Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(60).toInstant());
+    @Autowired
+    public JWTUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${jwt.self-contained:false}") boolean selfContained,
+                   @Value("${jwt.lifetime-minutes:60}") long lifetimeMinutes,
+                   @Value("${jwt.active-key-id:" + DEFAULT_KEY_ID + "}") String activeKeyId,
+                   Environment environment) {
+        this.selfContained = selfContained;
+        this.lifetimeMinutes = lifetimeMinutes;
+        this.activeKeyId = activeKeyId;
 
-        return JWT.create()
-                .withSubject("User details")
-                .withClaim("email", email)
-                .withIssuedAt(new Date())
-                .withIssuer("social-media-app")
+        Map<String, String> keys = new HashMap<>(Binder.get(environment)
+                .bind("jwt.keys", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap()));
+        keys.putIfAbsent(DEFAULT_KEY_ID, secret);
+
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("No signing key is configured for jwt.active-key-id = " + activeKeyId);
+        }
+
+        Map<String, JWTVerifier> verifierMap = new HashMap<>();
+        keys.forEach((keyId, keySecret) -> verifierMap.put(keyId, buildVerifier(Algorithm.HMAC256(keySecret))));
+
+        this.verifiers = Collections.unmodifiableMap(verifierMap);
+        this.signingAlgorithm = Algorithm.HMAC256(keys.get(activeKeyId));
+        this.legacyVerifier = verifiers.get(DEFAULT_KEY_ID);
+    }
+
+    public String generateToken (int id, String name, String email) {
+
+        Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(lifetimeMinutes).toInstant());
+
+        JWTCreator.Builder builder = JWT.create()
+                .withKeyId(activeKeyId)
+                .withSubject(SUBJECT)
+                .withJWTId(UUID.randomUUID().toString())
+                .withClaim("email", email);
+
+        if (selfContained) {
+            builder.withClaim("id", id)
+                    .withClaim("name", name);
+        }
+
+        return builder.withIssuedAt(new Date())
+                .withIssuer(ISSUER)
                 .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(signingAlgorithm);
     }
 
-    public String validateTokenAndRetrieveClaims (String token) throws JWTVerificationException {
+    public DecodedJWT verifyToken (String token) throws JWTVerificationException {
 
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .withIssuer("social-media-app")
-                .build();
+        DecodedJWT jwt = JWT.decode(token);
+
+        JWTVerifier verifier = jwt.getKeyId() == null ? legacyVerifier : verifiers.get(jwt.getKeyId());
 
-        DecodedJWT jwt = verifier.verify(token);
+        if (verifier == null) {
+            throw new JWTVerificationException("Unknown JWT key id");
+        }
 
-        return jwt.getClaim("email").asString();
+        return verifier.verify(jwt);
+    }
+
+    public boolean isSelfContained (DecodedJWT jwt) {
+
+        return !jwt.getClaim("id").isMissing() && !jwt.getClaim("name").isMissing();
+    }
+
+    public UserSecurityDetails retrievePrincipal (DecodedJWT jwt) {
+
+        return new UserSecurityDetails(User.builder()
+                .withId(jwt.getClaim("id").asInt())
+                .withName(jwt.getClaim("name").asString())
+                .withEmail(jwt.getClaim("email").asString())
+                .build());
+    }
+
+    private static JWTVerifier buildVerifier (Algorithm algorithm) {
+
+        return JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .build();
     }
 
 }
@@ -0,0 +1,7 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+public interface ImageBlobMigrationService {
+
+    int migrateBatch(int batchSize);
+
+}
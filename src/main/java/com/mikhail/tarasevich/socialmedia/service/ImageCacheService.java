@@ -0,0 +1,13 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+
+import java.util.function.IntFunction;
+
+public interface ImageCacheService {
+
+    ImageResponse get(int imageId, IntFunction<ImageResponse> loader);
+
+    void evict(int imageId);
+
+}
@@ -1,14 +1,17 @@
 package com.mikhail.tarasevich.socialmedia.service;
 
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
 public interface ImageService {
 
-    int uploadImage(MultipartFile file, int postId, String email);
+    int uploadImage(MultipartFile file, int postId, int userId);
 
-    byte[] downloadImage(int id);
+    ImageResponse downloadImage(int id);
+
+    ImageResponse readImage(int id);
 
     List<Integer> findImagesIdRelateToPost(int postId);
 
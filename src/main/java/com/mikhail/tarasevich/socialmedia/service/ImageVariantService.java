@@ -0,0 +1,15 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+
+import java.util.Optional;
+
+public interface ImageVariantService {
+
+    void scheduleVariants(int imageId);
+
+    void generateVariants(int imageId);
+
+    Optional<ImageResponse> downloadImageVariant(int imageId, int width);
+
+}
@@ -0,0 +1,13 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+
+import java.util.function.IntFunction;
+
+public interface PostCacheService {
+
+    PostResponse get(int postId, IntFunction<PostResponse> loader);
+
+    void evict(int postId);
+
+}
@@ -2,23 +2,27 @@ package com.mikhail.tarasevich.socialmedia.service;
 
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PostService {
 
     PostResponse findPostById (int id);
 
-    PostResponse createPost(PostRequest request, String email);
+    PostResponse createPost(PostRequest request, int userId);
 
-    void updatePost(PostRequest request, String email);
+    void updatePost(PostRequest request, int userId);
 
     void deletePostById(int id);
 
-    List<PostResponse> findAllPostsRelateToUser(int id);
+    List<PostResponse> findAllPostsRelateToUser(int id, int itemsPerPage, KeysetCursor cursor);
 
-    List<PostResponse> findLastPostOfSubscriptions(int id);
+    void streamAllPostsRelateToUser(int id, Consumer<PostResponse> action);
 
     List<PostResponse> findLastPostOfSubscriptions(int id, int itemsPerPage, int page);
 
+    List<PostResponse> findLastPostOfSubscriptions(int id, int itemsPerPage, KeysetCursor cursor);
+
 }
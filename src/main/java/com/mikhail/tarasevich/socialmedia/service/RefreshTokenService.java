@@ -0,0 +1,17 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+
+public interface RefreshTokenService {
+
+    String createRefreshToken(int userId);
+
+    UserResponse consumeRefreshToken(String refreshToken);
+
+    void revokeRefreshToken(String refreshToken);
+
+    void revokeAllRefreshTokens(int userId);
+
+    int purgeExpiredTokens();
+
+}
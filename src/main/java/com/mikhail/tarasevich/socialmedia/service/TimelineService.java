@@ -0,0 +1,16 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TimelineService {
+
+    Optional<List<Integer>> findPostIds(int userId, int offset, int limit);
+
+    void onPostPublished(int authorId, int postId);
+
+    void onPostRemoved(int authorId);
+
+    void onSubscriptionChanged(int userId, int anotherUserId);
+
+}
@@ -0,0 +1,15 @@
+package com.mikhail.tarasevich.socialmedia.service;
+
+import java.time.Instant;
+
+public interface TokenRevocationService {
+
+    void revokeToken(String jwtId, Instant expiresAt);
+
+    void revokeAllUserTokens(int userId, String email);
+
+    boolean isRevoked(String jwtId, String email, Instant issuedAt);
+
+    void rebuildFilter();
+
+}
@@ -0,0 +1,13 @@
+package com.mikhail.tarasevich.socialmedia.service.exception;
+
+public class BlobStoreException extends RuntimeException {
+
+    public BlobStoreException(String errMessage) {
+        super(errMessage);
+    }
+
+    public BlobStoreException(String errMessage, Throwable cause) {
+        super(errMessage, cause);
+    }
+
+}
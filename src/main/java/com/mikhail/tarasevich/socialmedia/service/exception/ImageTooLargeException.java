@@ -0,0 +1,9 @@
+package com.mikhail.tarasevich.socialmedia.service.exception;
+
+public class ImageTooLargeException extends ImageIncorrectDataException {
+
+    public ImageTooLargeException(String errMessage) {
+        super(errMessage);
+    }
+
+}
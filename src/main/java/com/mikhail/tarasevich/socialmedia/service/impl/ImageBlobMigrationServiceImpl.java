@@ -0,0 +1,59 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.entity.ImageCodec;
+import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageBlobMigrationService;
+import com.mikhail.tarasevich.socialmedia.service.ImageCacheService;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import com.mikhail.tarasevich.socialmedia.service.storage.ZlibCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional
+public class ImageBlobMigrationServiceImpl implements ImageBlobMigrationService {
+
+    private final ImageRepository imageRepository;
+    private final ImageCacheService imageCacheService;
+    private final BlobStore blobStore;
+    private final ZlibCodec zlibCodec;
+
+    @Autowired
+    public ImageBlobMigrationServiceImpl(ImageRepository imageRepository, ImageCacheService imageCacheService,
+                                         BlobStore blobStore, ZlibCodec zlibCodec) {
+        this.imageRepository = imageRepository;
+        this.imageCacheService = imageCacheService;
+        this.blobStore = blobStore;
+        this.zlibCodec = zlibCodec;
+    }
+
+    @Override
+    public int migrateBatch(int batchSize) {
+
+        List<Integer> ids = imageRepository.findIdsOfImagesStoredInDb(batchSize);
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Image> images = imageRepository.findAllById(ids);
+
+        // Unlink before the rows are modified: the native query flushes the session, and lo_unlink rolls back with it
+        imageRepository.unlinkDataOfImages(ids);
+
+        for (Image image : images) {
+            image.setBlobKey(blobStore.put(image.getData()));
+            image.setCodec(ImageCodec.DEFLATE);
+            image.setOriginalSize(zlibCodec.decompress(image.getData(), null).length);
+            image.setData(null);
+            imageCacheService.evict(image.getId());
+        }
+
+        return ids.size();
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+import com.mikhail.tarasevich.socialmedia.service.ImageCacheService;
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageIncorrectDataException;
+import com.mikhail.tarasevich.socialmedia.util.ByteBufferResource;
+import com.mikhail.tarasevich.socialmedia.util.TransactionUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+@Service
+public class ImageCacheServiceImpl implements ImageCacheService {
+
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_OVERSIZED_IDS = 10_000;
+    private static final CachedImage OVERSIZED = new CachedImage(ByteBuffer.allocate(0), null);
+
+    // Entries hold direct buffers, so the cached bytes live outside the heap and only the small buffer headers are
+    // visible to the collector. Caffeine's W-TinyLFU keeps one-off downloads from evicting popular images.
+    // The weigher bounds the bytes referenced by live entries; an evicted buffer is freed only once the collector
+    // reclaims it, so -XX:MaxDirectMemorySize should leave headroom above image.cache.maximum-bytes.
+    private final Cache<Integer, CachedImage> images;
+    // Images known to exceed the entry limit bypass the cache so they do not show up as misses on every download
+    private final Cache<Integer, Boolean> oversizedIds;
+    private final long maxEntryBytes;
+
+    @Autowired
+    public ImageCacheServiceImpl(@Value("${image.cache.maximum-bytes:67108864}") long maximumBytes,
+                                 @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                                 MeterRegistry meterRegistry) {
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Integer imageId, CachedImage image) -> image.weight())
+                .recordStats()
+                .build();
+        this.oversizedIds = Caffeine.newBuilder()
+                .maximumSize(MAX_OVERSIZED_IDS)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "images");
+
+        Gauge.builder("image.cache.occupancy.bytes", images, ImageCacheServiceImpl::weightedSize)
+                .description("Off-heap bytes held by cached images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("image.cache.budget.bytes", () -> maximumBytes)
+                .description("Maximum off-heap bytes the image cache may hold")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ImageResponse get(int imageId, IntFunction<ImageResponse> loader) {
+
+        if (oversizedIds.getIfPresent(imageId) != null) {
+            return loader.apply(imageId);
+        }
+
+        ImageResponse[] uncached = new ImageResponse[1];
+
+        CachedImage image = images.get(imageId, id -> {
+            ImageResponse loaded = loader.apply(id);
+
+            if (contentLength(loaded.getContent()) > maxEntryBytes) {
+                uncached[0] = loaded;
+                return OVERSIZED;
+            }
+
+            return new CachedImage(toDirectBuffer(loaded.getContent()), loaded.getType());
+        });
+
+        if (image != OVERSIZED) {
+            return image.toResponse();
+        }
+
+        // The zero-weight marker only lets concurrent readers share the single load; it is dropped straight away
+        oversizedIds.put(imageId, Boolean.TRUE);
+        images.asMap().remove(imageId, OVERSIZED);
+
+        return uncached[0] != null ? uncached[0] : loader.apply(imageId);
+    }
+
+    @Override
+    public void evict(int imageId) {
+
+        TransactionUtil.afterCommit(() -> {
+            images.invalidate(imageId);
+            oversizedIds.invalidate(imageId);
+        });
+    }
+
+    private static long weightedSize(Cache<Integer, CachedImage> cache) {
+
+        // Caffeine applies writes to the weighted size during its asynchronous maintenance, so settle it first
+        cache.cleanUp();
+
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static long contentLength(Resource resource) {
+
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            throw new ImageIncorrectDataException("The image could not be read");
+        }
+    }
+
+    private static ByteBuffer toDirectBuffer(Resource resource) {
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(contentLength(resource)));
+        byte[] chunk = new byte[COPY_BUFFER_SIZE];
+
+        try (InputStream content = resource.getInputStream()) {
+            int read;
+            while (buffer.hasRemaining() && (read = content.read(chunk, 0, Math.min(chunk.length, buffer.remaining()))) > 0) {
+                buffer.put(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            throw new ImageIncorrectDataException("The image could not be read");
+        }
+
+        if (buffer.hasRemaining()) {
+            throw new ImageIncorrectDataException("The image is shorter than its declared length");
+        }
+
+        return buffer.flip();
+    }
+
+    private static class CachedImage {
+
+        private final ByteBuffer content;
+        private final String type;
+
+        CachedImage(ByteBuffer content, String type) {
+            this.content = content;
+            this.type = type;
+        }
+
+        int weight() {
+            return content.capacity() + (type == null ? 0 : type.length());
+        }
+
+        ImageResponse toResponse() {
+            return ImageResponse.builder()
+                    .withContent(new ByteBufferResource(content))
+                    .withType(type)
+                    .build();
+        }
+
+    }
+
+}
@@ -1,23 +1,34 @@
 package com.mikhail.tarasevich.socialmedia.service.impl;
 
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.entity.ImageCodec;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
-import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
 import com.mikhail.tarasevich.socialmedia.repository.PostRepository;
-import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageCacheService;
 import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.PostCacheService;
 import com.mikhail.tarasevich.socialmedia.service.exception.ImageIncorrectDataException;
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageTooLargeException;
 import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
-import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import com.mikhail.tarasevich.socialmedia.service.storage.ZlibCodec;
+import com.mikhail.tarasevich.socialmedia.util.CountingInputStream;
 import com.mikhail.tarasevich.socialmedia.util.ImageUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Service
@@ -28,52 +39,90 @@ public class ImageServiceImpl implements ImageService {
 
     private final PostRepository postRepository;
 
-    private final UserRepository userRepository;
+    private final PostCacheService postCacheService;
+
+    private final ImageCacheService imageCacheService;
+
+    private final BlobStore blobStore;
+
+    private final ZlibCodec zlibCodec;
+
+    private final long maxImageSize;
 
     @Autowired
     public ImageServiceImpl(ImageRepository imageRepository, PostRepository postRepository,
-                            UserRepository userRepository) {
+                            PostCacheService postCacheService, ImageCacheService imageCacheService,
+                            BlobStore blobStore, ZlibCodec zlibCodec,
+                            @Value("${image.upload.max-size-bytes:10485760}") long maxImageSize) {
         this.imageRepository = imageRepository;
         this.postRepository = postRepository;
-        this.userRepository = userRepository;
+        this.postCacheService = postCacheService;
+        this.imageCacheService = imageCacheService;
+        this.blobStore = blobStore;
+        this.zlibCodec = zlibCodec;
+        this.maxImageSize = maxImageSize;
     }
 
     @Override
-    public int uploadImage(MultipartFile file, int postId, String userEmail) {
+    public int uploadImage(MultipartFile file, int postId, int userId) {
 
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new IncorrectRequestDataException("The post with id = " + postId + " does not exist"));
 
-        User user = userRepository.findUserByEmail(userEmail)
-                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + userEmail + " in DB"));
-
-        if (user.getId() != post.getUser().getId())
+        if (userId != post.getUser().getId())
             throw new PostNotValidDataException("User tries add image to a post that does not belong to them");
 
+        if (file.getSize() > maxImageSize)
+            throw new ImageTooLargeException("The image exceeds the maximum size of " + maxImageSize + " bytes");
+
         Image image;
 
-        try {
+        try (InputStream content = new BufferedInputStream(file.getInputStream())) {
+            content.mark(ImageUtil.SNIFF_LENGTH);
+            ImageCodec codec = ImageUtil.chooseCodec(content.readNBytes(ImageUtil.SNIFF_LENGTH), file.getContentType());
+            content.reset();
+
+            CountingInputStream countedContent = new CountingInputStream(content, maxImageSize);
+            String blobKey = store(countedContent, codec);
+
             image = Image.builder()
                     .withName(file.getOriginalFilename())
                     .withPost(post)
                     .withType(file.getContentType())
-                    .withData(ImageUtil.compressImage(file.getBytes()))
+                    .withBlobKey(blobKey)
+                    .withCodec(codec)
+                    .withOriginalSize(Math.toIntExact(countedContent.getCount()))
                     .build();
         } catch (IOException e) {
             throw new ImageIncorrectDataException("The image has incorrect data");
         }
 
         imageRepository.save(image);
+        postCacheService.evict(postId);
 
         return image.getId();
     }
 
+    // Cache hits must not begin a transaction or borrow a connection; on a miss the repository opens its own
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImageResponse downloadImage(int id) {
+
+        return imageCacheService.get(id, this::readImage);
+    }
+
+    // Reads the stored original without the image cache, for one-off readers such as variant generation
     @Override
     @Transactional(readOnly = true)
-    public byte[] downloadImage(int id) {
+    public ImageResponse readImage(int id) {
 
-        return imageRepository.findById(id).map(image -> ImageUtil.decompressImage(image.getData()))
+        Image image = imageRepository.findById(id)
                 .orElseThrow(() -> new IncorrectRequestDataException("There is no image with id = " + id + " in file repository"));
+
+        return ImageResponse.builder()
+                .withContent(contentOf(image))
+                .withType(image.getType())
+                .build();
     }
 
     @Override
@@ -83,4 +132,28 @@ public class ImageServiceImpl implements ImageService {
         return imageRepository.findImagesIdRelateToPost(postId);
     }
 
+    private Resource contentOf(Image image) {
+
+        if (image.getBlobKey() == null) {
+            return new ByteArrayResource(zlibCodec.decompress(image.getData(), image.getOriginalSize()));
+        }
+
+        if (image.getCodec() == ImageCodec.IDENTITY) {
+            return blobStore.resource(image.getBlobKey());
+        }
+
+        return new ByteArrayResource(zlibCodec.decompress(blobStore.get(image.getBlobKey()), image.getOriginalSize()));
+    }
+
+    private String store(InputStream content, ImageCodec codec) throws IOException {
+
+        if (codec == ImageCodec.IDENTITY) {
+            return blobStore.put(content);
+        }
+
+        try (InputStream compressed = zlibCodec.compressStream(content)) {
+            return blobStore.put(compressed);
+        }
+    }
+
 }
@@ -0,0 +1,208 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+import com.mikhail.tarasevich.socialmedia.entity.ImageVariant;
+import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.repository.ImageVariantRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.ImageVariantService;
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import com.mikhail.tarasevich.socialmedia.util.ImageUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+
+    private final ImageService imageService;
+    private final ImageRepository imageRepository;
+    private final ImageVariantRepository imageVariantRepository;
+    private final BlobStore blobStore;
+    private final int[] widths;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+    private final Set<Integer> scheduledImageIds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ImageVariantServiceImpl(ImageService imageService, ImageRepository imageRepository,
+                                   ImageVariantRepository imageVariantRepository, BlobStore blobStore,
+                                   @Value("${image.variants.widths:160,320,640}") int[] widths,
+                                   @Value("${image.variants.max-pixels:40000000}") long maxPixels,
+                                   @Value("${image.variants.pool-size:2}") int poolSize,
+                                   @Value("${image.variants.queue-capacity:100}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        this.imageService = imageService;
+        this.imageRepository = imageRepository;
+        this.imageVariantRepository = imageVariantRepository;
+        this.blobStore = blobStore;
+        this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-variants-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "image.variants.executor", Tags.empty()).bindTo(meterRegistry);
+
+        this.rejectedCounter = Counter.builder("image.variants.rejected")
+                .description("Variant generation tasks dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void scheduleVariants(int imageId) {
+
+        if (!scheduledImageIds.add(imageId)) return;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(imageId);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to generate variants of the image with id = {}", imageId, e);
+                } finally {
+                    scheduledImageIds.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // A dropped task is retried by the next request for a missing variant
+            scheduledImageIds.remove(imageId);
+            rejectedCounter.increment();
+        }
+    }
+
+    @Override
+    public void generateVariants(int imageId) {
+
+        List<Integer> existingWidths = imageVariantRepository.findWidthsByImageId(imageId);
+        int[] missingWidths = Arrays.stream(widths).filter(width -> !existingWidths.contains(width)).toArray();
+
+        if (missingWidths.length == 0) return;
+
+        BufferedImage original = readOriginal(imageId);
+
+        for (int width : missingWidths) {
+            ImageVariant variant = ImageVariant.builder()
+                    .withImage(imageRepository.getReferenceById(imageId))
+                    .withWidth(width)
+                    .build();
+
+            if (original != null && original.getWidth() > width) {
+                BufferedImage resized = ImageUtil.resize(original, width);
+                variant.setBlobKey(blobStore.put(ImageUtil.encode(resized)));
+                variant.setType(ImageUtil.variantType(resized));
+            }
+
+            try {
+                imageVariantRepository.save(variant);
+            } catch (DataIntegrityViolationException e) {
+                LOGGER.debug("The variant {} of the image with id = {} was stored concurrently", width, imageId);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ImageResponse> downloadImageVariant(int imageId, int width) {
+
+        if (width <= 0)
+            throw new IncorrectRequestDataException("The image width must be positive");
+
+        Optional<Integer> variantWidth = Arrays.stream(widths).filter(w -> w >= width).boxed().findFirst();
+
+        if (variantWidth.isEmpty()) {
+            return Optional.of(imageService.downloadImage(imageId));
+        }
+
+        Optional<ImageVariant> variant = imageVariantRepository.findByImageIdAndWidth(imageId, variantWidth.get());
+
+        if (variant.isEmpty()) {
+            if (!imageRepository.existsById(imageId))
+                throw new IncorrectRequestDataException("There is no image with id = " + imageId + " in file repository");
+
+            scheduleVariants(imageId);
+
+            return Optional.empty();
+        }
+
+        if (variant.get().getBlobKey() == null) {
+            return Optional.of(imageService.downloadImage(imageId));
+        }
+
+        return Optional.of(ImageResponse.builder()
+                .withContent(blobStore.resource(variant.get().getBlobKey()))
+                .withType(variant.get().getType())
+                .build());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // Returns null when no variants can be made, so blob-less rows are stored and the original is served from then on
+    private BufferedImage readOriginal(int imageId) {
+
+        try (InputStream content = imageService.readImage(imageId).getContent().getInputStream();
+             ImageInputStream imageInput = ImageIO.createImageInputStream(content)) {
+
+            Iterator<ImageReader> readers = imageInput == null ? Collections.emptyIterator() : ImageIO.getImageReaders(imageInput);
+
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(imageInput, true, true);
+
+                // The header is enough for the dimensions, so oversized rasters are refused before they are allocated
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+
+                if (pixels > maxPixels) {
+                    LOGGER.warn("The image with id = {} has {} pixels, more than the limit of {}", imageId, pixels, maxPixels);
+                    return null;
+                }
+
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("The image with id = {} could not be decoded", imageId, e);
+            return null;
+        }
+    }
+
+}
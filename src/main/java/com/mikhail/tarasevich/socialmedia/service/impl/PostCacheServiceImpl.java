@@ -0,0 +1,77 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+import com.mikhail.tarasevich.socialmedia.service.PostCacheService;
+import com.mikhail.tarasevich.socialmedia.util.TransactionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+@Service
+public class PostCacheServiceImpl implements PostCacheService {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int IMAGE_ID_BYTES = 20;
+
+    private final Cache<Integer, PostResponse> posts;
+
+    @Autowired
+    public PostCacheServiceImpl(@Value("${post.cache.maximum-weight-bytes:16777216}") long maximumWeightBytes,
+                                @Value("${post.cache.ttl-seconds:300}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.posts = Caffeine.newBuilder()
+                .maximumWeight(maximumWeightBytes)
+                .weigher((Integer postId, PostResponse post) -> weigh(post))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, posts, "posts");
+    }
+
+    @Override
+    public PostResponse get(int postId, IntFunction<PostResponse> loader) {
+
+        return copyOf(posts.get(postId, loader::apply));
+    }
+
+    @Override
+    public void evict(int postId) {
+
+        TransactionUtil.afterCommit(() -> posts.invalidate(postId));
+    }
+
+    // The cached instance is shared between callers, so each of them gets its own mutable copy
+    private static PostResponse copyOf(PostResponse post) {
+
+        return PostResponse.builder()
+                .withId(post.getId())
+                .withUserId(post.getUserId())
+                .withHeader(post.getHeader())
+                .withContent(post.getContent())
+                .withCreatedAt(post.getCreatedAt())
+                .withImages(post.getImages() == null ? null : new ArrayList<>(post.getImages()))
+                .build();
+    }
+
+    private static int weigh(PostResponse post) {
+
+        return ENTRY_OVERHEAD_BYTES
+                + 2 * (length(post.getHeader()) + length(post.getContent()))
+                + (post.getImages() == null ? 0 : IMAGE_ID_BYTES * post.getImages().size());
+    }
+
+    private static int length(String value) {
+
+        return value == null ? 0 : value.length();
+    }
+
+}
@@ -2,134 +2,223 @@ package com.mikhail.tarasevich.socialmedia.service.impl;
 
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
-import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
 import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.repository.LatestPostRepository;
 import com.mikhail.tarasevich.socialmedia.repository.PostRepository;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostImageIdView;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
+import com.mikhail.tarasevich.socialmedia.service.PostCacheService;
 import com.mikhail.tarasevich.socialmedia.service.PostService;
-import com.mikhail.tarasevich.socialmedia.service.UserService;
+import com.mikhail.tarasevich.socialmedia.service.TimelineService;
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotFoundException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.service.mapper.PostMapper;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
 import com.mikhail.tarasevich.socialmedia.util.PageableService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class PostServiceImpl implements PostService {
 
+    private static final int STREAM_BATCH_SIZE = 100;
+
     private final PostRepository postRepository;
-    private final UserService userService;
     private final ImageRepository imageRepository;
+    private final LatestPostRepository latestPostRepository;
+    private final TimelineService timelineService;
+    private final PostCacheService postCacheService;
     private final PostMapper mapper;
 
     @Autowired
-    public PostServiceImpl(PostRepository postRepository, UserService userService, ImageRepository imageRepository, PostMapper mapper) {
+    public PostServiceImpl(PostRepository postRepository, ImageRepository imageRepository,
+                           LatestPostRepository latestPostRepository, TimelineService timelineService,
+                           PostCacheService postCacheService, PostMapper mapper) {
         this.postRepository = postRepository;
-        this.userService = userService;
         this.imageRepository = imageRepository;
+        this.latestPostRepository = latestPostRepository;
+        this.timelineService = timelineService;
+        this.postCacheService = postCacheService;
         this.mapper = mapper;
     }
 
+    // Cache hits must not begin a transaction or borrow a connection; on a miss each repository call opens its own
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PostResponse findPostById(int id) {
 
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new PostNotFoundException("Post with id = " + id + " does not exist"));
-
-        List<Integer> imagesId = imageRepository.findImagesIdRelateToPost(id);
-
-        PostResponse response = mapper.toResponse(post);
-        response.setImages(imagesId);
-
-        return response;
+        return postCacheService.get(id, this::loadPost);
     }
 
     @Override
-    public PostResponse createPost(PostRequest request, String email) {
+    public PostResponse createPost(PostRequest request, int userId) {
 
         request.setId(0);
+        request.setUserId(userId);
 
-        UserResponse userResponse = userService.findUserByEmail(email);
-
-        request.setUserId(userResponse.getId());
+        Post post = postRepository.save(mapper.toEntity(request));
+        latestPostRepository.upsertLatestPost(userId, post.getId(), post.getCreatedAt());
+        timelineService.onPostPublished(userId, post.getId());
 
-        return mapper.toResponse(postRepository.save(mapper.toEntity(request)));
+        return mapper.toResponse(post);
     }
 
     @Override
-    public void updatePost(PostRequest request, String email) {
-
-        UserResponse userResponse = userService.findUserByEmail(email);
+    public void updatePost(PostRequest request, int userId) {
 
         PostResponse postResponse = findPostById(request.getId());
 
-        if (postResponse.getUserId() != userResponse.getId())
+        if (postResponse.getUserId() != userId)
             throw new PostNotValidDataException("User tries to update a post that does not belong to them");
 
-        request.setUserId(userResponse.getId());
+        request.setUserId(userId);
 
-        mapper.toResponse(postRepository.save(mapper.toEntity(request)));
+        Post post = postRepository.save(mapper.toEntity(request));
+        latestPostRepository.upsertLatestPost(userId, post.getId(), post.getCreatedAt());
+        timelineService.onPostPublished(userId, post.getId());
+        postCacheService.evict(post.getId());
     }
 
     @Override
     public void deletePostById(int id) {
 
-        postRepository.findById(id)
+        Post post = postRepository.findById(id)
                 .orElseThrow(() -> new PostNotFoundException("Post with id = " + id + " does not exist"));
 
+        if (latestPostRepository.deleteLatestPostByPostId(id) > 0) {
+            latestPostRepository.insertLatestPostOfUser(post.getUser().getId(), id);
+            timelineService.onPostRemoved(post.getUser().getId());
+        }
+
         postRepository.deleteById(id);
+        postCacheService.evict(id);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<PostResponse> findAllPostsRelateToUser(int id) {
+    public List<PostResponse> findAllPostsRelateToUser(int id, int itemsPerPage, KeysetCursor cursor) {
 
-        return postRepository.findPostsByUserId(id).stream()
-                .map(p -> {
-                    PostResponse postResponse = mapper.toResponse(p);
-                    List<Integer> imagesId = imageRepository.findImagesIdRelateToPost(p.getId());
-                    postResponse.setImages(imagesId);
-                    return postResponse;
-                })
-                .collect(Collectors.toList());
+        int limit = PageableService.checkItemsPerPage(itemsPerPage);
+
+        if (cursor == null) {
+            return toResponsesWithImages(postRepository.findPostViewsByUserId(id, limit));
+        }
+
+        if (cursor.getCreatedAt() == null) {
+            throw new IncorrectRequestDataException("Invalid pagination cursor");
+        }
+
+        return toResponsesWithImages(
+                postRepository.findPostViewsByUserIdBefore(id, cursor.getCreatedAt(), cursor.getId(), limit));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<PostResponse> findLastPostOfSubscriptions(int id) {
+    public void streamAllPostsRelateToUser(int id, Consumer<PostResponse> action) {
 
-        return postRepository.findLatestPostsOfSubscribers(id).stream()
-                .map(p -> {
-                    PostResponse postResponse = mapper.toResponse(p);
-                    List<Integer> imagesId = imageRepository.findImagesIdRelateToPost(p.getId());
-                    postResponse.setImages(imagesId);
-                    return postResponse;
-                })
-                .collect(Collectors.toList());
+        try (Stream<PostView> posts = postRepository.streamPostViewsByUserId(id)) {
+            List<PostView> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            Iterator<PostView> iterator = posts.iterator();
+
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+
+                if (batch.size() == STREAM_BATCH_SIZE) {
+                    toResponsesWithImages(batch).forEach(action);
+                    batch.clear();
+                }
+            }
+
+            toResponsesWithImages(batch).forEach(action);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PostResponse> findLastPostOfSubscriptions(int id, int itemsPerPage, int page) {
 
-        itemsPerPage = PageableService.checkItemsPerPage(itemsPerPage);
-        int offset = PageableService.getOffset(itemsPerPage, page);
+        int limit = PageableService.checkItemsPerPage(itemsPerPage);
+        int offset = PageableService.getOffset(limit, page);
+
+        List<PostView> posts = timelineService.findPostIds(id, offset, limit)
+                .map(this::findPostsInOrder)
+                .orElseGet(() -> postRepository.findLatestPostsOfSubscribers(id, limit, offset));
+
+        return toResponsesWithImages(posts);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostResponse> findLastPostOfSubscriptions(int id, int itemsPerPage, KeysetCursor cursor) {
+
+        if (cursor.getCreatedAt() == null) {
+            throw new IncorrectRequestDataException("Invalid pagination cursor");
+        }
+
+        int limit = PageableService.checkItemsPerPage(itemsPerPage);
+
+        return toResponsesWithImages(
+                postRepository.findLatestPostsOfSubscribersBefore(id, cursor.getCreatedAt(), cursor.getId(), limit));
+    }
+
+    private PostResponse loadPost(int id) {
+
+        PostView post = postRepository.findPostViewById(id)
+                .orElseThrow(() -> new PostNotFoundException("Post with id = " + id + " does not exist"));
+
+        List<Integer> imagesId = imageRepository.findImagesIdRelateToPost(id);
+
+        PostResponse response = mapper.toResponse(post);
+        response.setImages(imagesId);
+
+        return response;
+    }
+
+    private List<PostResponse> toResponsesWithImages(List<PostView> posts) {
 
-        return postRepository.findLatestPostsOfSubscribers(id, itemsPerPage, offset).stream()
+        if (posts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, List<Integer>> imagesIdByPostId = imageRepository.findImageIdsByPostIds(
+                        posts.stream().map(PostView::getId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.groupingBy(PostImageIdView::getPostId,
+                        Collectors.mapping(PostImageIdView::getImageId, Collectors.toList())));
+
+        return posts.stream()
                 .map(p -> {
                     PostResponse postResponse = mapper.toResponse(p);
-                    List<Integer> imagesId = imageRepository.findImagesIdRelateToPost(p.getId());
-                    postResponse.setImages(imagesId);
+                    postResponse.setImages(imagesIdByPostId.getOrDefault(p.getId(), Collections.emptyList()));
                     return postResponse;
                 })
                 .collect(Collectors.toList());
     }
 
+    private List<PostView> findPostsInOrder(List<Integer> ids) {
+
+        Map<Integer, PostView> postsById = postRepository.findPostViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(PostView::getId, Function.identity()));
+
+        return ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
 }
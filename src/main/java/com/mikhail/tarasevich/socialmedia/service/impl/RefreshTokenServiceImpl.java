@@ -0,0 +1,113 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.entity.RefreshToken;
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.RefreshTokenRepository;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
+import com.mikhail.tarasevich.socialmedia.service.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+@Service
+@Transactional
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserMapper userMapper;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.refresh.lifetime-days:30}")
+    private long lifetimeDays;
+
+    @Autowired
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserMapper userMapper) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userMapper = userMapper;
+    }
+
+    @Override
+    public String createRefreshToken(int userId) {
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .withUser(User.builder().withId(userId).build())
+                .withTokenHash(hash(refreshToken))
+                .withExpiresAt(LocalDateTime.now().plusDays(lifetimeDays))
+                .build());
+
+        return refreshToken;
+    }
+
+    // An expired token is still consumed: its delete must commit even though the exchange is rejected
+    @Override
+    @Transactional(noRollbackFor = AuthenticationDataException.class)
+    public UserResponse consumeRefreshToken(String refreshToken) {
+
+        RefreshToken storedToken = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new AuthenticationDataException("Invalid refresh token. Login again."));
+
+        if (refreshTokenRepository.deleteRefreshTokenById(storedToken.getId()) == 0) {
+            throw new AuthenticationDataException("Refresh token has already been used. Login again.");
+        }
+
+        if (storedToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new AuthenticationDataException("Refresh token has expired. Login again.");
+        }
+
+        return userMapper.toResponse(storedToken.getUser());
+    }
+
+    @Override
+    public void revokeRefreshToken(String refreshToken) {
+
+        refreshTokenRepository.deleteRefreshTokenByTokenHash(hash(refreshToken));
+    }
+
+    @Override
+    public void revokeAllRefreshTokens(int userId) {
+
+        refreshTokenRepository.deleteRefreshTokensByUserId(userId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval-ms:3600000}")
+    public int purgeExpiredTokens() {
+
+        return refreshTokenRepository.deleteExpiredTokens(LocalDateTime.now());
+    }
+
+    private static String hash(String refreshToken) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mikhail.tarasevich.socialmedia.entity.LatestPost;
+import com.mikhail.tarasevich.socialmedia.repository.LatestPostRepository;
+import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.service.TimelineService;
+import com.mikhail.tarasevich.socialmedia.util.TransactionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    private final LatestPostRepository latestPostRepository;
+    private final UserRepository userRepository;
+    private final int capacity;
+    private final Cache<Integer, Timeline> timelines;
+
+    @Autowired
+    public TimelineServiceImpl(LatestPostRepository latestPostRepository, UserRepository userRepository,
+                               @Value("${feed.timeline.capacity:200}") int capacity,
+                               @Value("${feed.timeline.maximum-users:10000}") long maximumUsers,
+                               MeterRegistry meterRegistry) {
+        this.latestPostRepository = latestPostRepository;
+        this.userRepository = userRepository;
+        this.capacity = capacity;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, timelines, "feed.timelines");
+    }
+
+    @Override
+    public Optional<List<Integer>> findPostIds(int userId, int offset, int limit) {
+
+        return Optional.ofNullable(timelines.get(userId, this::loadTimeline).page(offset, limit));
+    }
+
+    // With no timeline cached there is nothing to fan out to, so the subscriber lookup is skipped
+    @Override
+    public void onPostPublished(int authorId, int postId) {
+
+        TransactionUtil.afterCommit(() -> {
+            if (timelines.asMap().isEmpty()) {
+                return;
+            }
+
+            userRepository.findSubscriberIdsOfUser(authorId).forEach(subscriberId ->
+                    timelines.asMap().computeIfPresent(subscriberId, (id, timeline) -> {
+                        timeline.push(authorId, postId);
+                        return timeline;
+                    }));
+        });
+    }
+
+    @Override
+    public void onPostRemoved(int authorId) {
+
+        TransactionUtil.afterCommit(() -> {
+            if (!timelines.asMap().isEmpty()) {
+                timelines.invalidateAll(userRepository.findSubscriberIdsOfUser(authorId));
+            }
+        });
+    }
+
+    @Override
+    public void onSubscriptionChanged(int userId, int anotherUserId) {
+
+        TransactionUtil.afterCommit(() -> timelines.invalidateAll(List.of(userId, anotherUserId)));
+    }
+
+    private Timeline loadTimeline(int userId) {
+
+        List<LatestPost> latestPosts = latestPostRepository.findLatestPostsOfSubscriptions(userId, capacity + 1);
+
+        Timeline timeline = new Timeline(capacity, latestPosts.size() > capacity);
+
+        for (int i = Math.min(latestPosts.size(), capacity) - 1; i >= 0; i--) {
+            timeline.push(latestPosts.get(i).getUserId(), latestPosts.get(i).getPostId());
+        }
+
+        return timeline;
+    }
+
+    static final class Timeline {
+
+        private static final int EMPTY = 0;
+
+        private final int[] postIds;
+        private final int[] authorIds;
+        private int head;
+        private int size;
+        private boolean truncated;
+
+        Timeline(int capacity, boolean truncated) {
+            this.postIds = new int[capacity];
+            this.authorIds = new int[capacity];
+            this.truncated = truncated;
+        }
+
+        synchronized void push(int authorId, int postId) {
+
+            for (int i = 0; i < size; i++) {
+                if (authorIds[i] == authorId) {
+                    authorIds[i] = EMPTY;
+                    postIds[i] = EMPTY;
+                }
+            }
+
+            if (size == postIds.length) {
+                truncated |= postIds[head] != EMPTY;
+            } else {
+                size++;
+            }
+
+            postIds[head] = postId;
+            authorIds[head] = authorId;
+            head = (head + 1) % postIds.length;
+        }
+
+        synchronized List<Integer> page(int offset, int limit) {
+
+            List<Integer> page = new ArrayList<>(limit);
+            int skipped = 0;
+
+            for (int i = 1; i <= size && page.size() < limit; i++) {
+                int postId = postIds[Math.floorMod(head - i, postIds.length)];
+
+                if (postId == EMPTY) {
+                    continue;
+                }
+
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(postId);
+                }
+            }
+
+            return page.size() < limit && truncated ? null : page;
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.RevokedToken;
+import com.mikhail.tarasevich.socialmedia.repository.RevokedTokenRepository;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
+import com.mikhail.tarasevich.socialmedia.util.BloomFilter;
+import com.mikhail.tarasevich.socialmedia.util.TransactionUtil;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService, InitializingBean {
+
+    private static final String JWT_ID_PREFIX = "jti:";
+    private static final String USER_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final long expectedRevocations;
+    private final double falsePositiveProbability;
+    private final long tokenLifetimeMinutes;
+    private final Object filterLock = new Object();
+
+    private volatile BloomFilter filter;
+    private BloomFilter pendingFilter;
+
+    @Autowired
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+                                      RefreshTokenService refreshTokenService,
+                                      @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+                                      @Value("${jwt.revocation.false-positive-probability:0.001}") double falsePositiveProbability,
+                                      @Value("${jwt.lifetime-minutes:60}") long tokenLifetimeMinutes) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.tokenLifetimeMinutes = tokenLifetimeMinutes;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveProbability);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuildFilter();
+    }
+
+    @Override
+    @Transactional
+    public void revokeToken(String jwtId, Instant expiresAt) {
+
+        String tokenKey = JWT_ID_PREFIX + jwtId;
+
+        addToFilter(tokenKey);
+
+        if (revokedTokenRepository.findByTokenKey(tokenKey).isEmpty()) {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .withTokenKey(tokenKey)
+                    .withRevokedAt(LocalDateTime.now())
+                    .withExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                    .build());
+        }
+
+        TransactionUtil.afterCommit(() -> addToFilter(tokenKey));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAllUserTokens(int userId, String email) {
+
+        String tokenKey = USER_PREFIX + email;
+        LocalDateTime now = LocalDateTime.now();
+
+        addToFilter(tokenKey);
+
+        RevokedToken revokedToken = revokedTokenRepository.findByTokenKey(tokenKey)
+                .orElseGet(() -> RevokedToken.builder().withTokenKey(tokenKey).build());
+        revokedToken.setRevokedAt(now);
+        revokedToken.setExpiresAt(now.plusMinutes(tokenLifetimeMinutes));
+        revokedTokenRepository.save(revokedToken);
+        TransactionUtil.afterCommit(() -> addToFilter(tokenKey));
+
+        refreshTokenService.revokeAllRefreshTokens(userId);
+    }
+
+    // Runs on every authenticated request, so it stays outside any transaction: the repository is only consulted
+    // after a filter hit and opens its own read-only transaction then
+    @Override
+    public boolean isRevoked(String jwtId, String email, Instant issuedAt) {
+
+        BloomFilter current = filter;
+
+        if (jwtId != null && current.mightContain(JWT_ID_PREFIX + jwtId)
+                && revokedTokenRepository.findByTokenKey(JWT_ID_PREFIX + jwtId).isPresent()) {
+            return true;
+        }
+
+        if (email != null && current.mightContain(USER_PREFIX + email)) {
+            Optional<RevokedToken> revokedToken = revokedTokenRepository.findByTokenKey(USER_PREFIX + email);
+
+            return revokedToken.isPresent() && (issuedAt == null || !LocalDateTime.ofInstant(issuedAt, ZoneId.systemDefault())
+                    .isAfter(revokedToken.get().getRevokedAt().truncatedTo(ChronoUnit.SECONDS)));
+        }
+
+        return false;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:300000}")
+    public void rebuildFilter() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        revokedTokenRepository.deleteExpiredTokens(now);
+
+        BloomFilter rebuilt = new BloomFilter(expectedRevocations, falsePositiveProbability);
+
+        synchronized (filterLock) {
+            pendingFilter = rebuilt;
+        }
+
+        List<String> tokenKeys = revokedTokenRepository.findActiveTokenKeys(now);
+        tokenKeys.forEach(rebuilt::put);
+
+        synchronized (filterLock) {
+            filter = rebuilt;
+            pendingFilter = null;
+        }
+    }
+
+    // Called before the row is written so the revocation applies at once, and again after commit because a rebuild
+    // that read the table in between would otherwise drop the key until the next rebuild
+    private void addToFilter(String tokenKey) {
+
+        synchronized (filterLock) {
+            filter.put(tokenKey);
+
+            if (pendingFilter != null) {
+                pendingFilter.put(tokenKey);
+            }
+        }
+    }
+
+}
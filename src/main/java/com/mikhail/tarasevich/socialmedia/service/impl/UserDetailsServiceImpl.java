@@ -1,10 +1,12 @@
 package com.mikhail.tarasevich.socialmedia.service.impl;
 
+import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
 import com.mikhail.tarasevich.socialmedia.security.UserSecurityDetails;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,7 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Transactional
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -29,4 +31,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + email + " in DB")));
     }
 
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+        User user = userRepository.findUserByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UserNotFoundException("There is no user with email = " + userDetails.getUsername() + " in DB"));
+
+        user.setPassword(newPassword);
+
+        return new UserSecurityDetails(userRepository.save(user));
+    }
+
 }
@@ -4,12 +4,15 @@ import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
 import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.service.TimelineService;
 import com.mikhail.tarasevich.socialmedia.service.UserService;
 import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
+import com.mikhail.tarasevich.socialmedia.service.exception.UserNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.service.mapper.UserMapper;
 import com.mikhail.tarasevich.socialmedia.service.validator.UserValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,14 +28,16 @@ public class UserServiceImpl implements UserService {
     private final UserValidator userValidator;
     private final UserMapper userMapper;
     private final PasswordEncoder encoder;
+    private final TimelineService timelineService;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository, UserValidator userValidator,
-                           UserMapper userMapper, PasswordEncoder encoder) {
+                           UserMapper userMapper, PasswordEncoder encoder, TimelineService timelineService) {
         this.userRepository = userRepository;
         this.userValidator = userValidator;
         this.userMapper = userMapper;
         this.encoder = encoder;
+        this.timelineService = timelineService;
     }
 
     @Override
@@ -63,14 +68,18 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserResponse saveUser(UserRequest request) {
 
-        userValidator.validateName(request);
-        userValidator.validateEmail(request);
         userValidator.validatePassword(request);
+        userValidator.validateUniqueness(request);
 
         request.setId(0);
         request.setPassword(encoder.encode(request.getPassword()));
 
-        return userMapper.toResponse(userRepository.save(userMapper.toEntity(request)));
+        try {
+            return userMapper.toResponse(userRepository.saveAndFlush(userMapper.toEntity(request)));
+        } catch (DataIntegrityViolationException e) {
+            throw new UserNotValidDataException("User with name " + request.getName() + " or email " +
+                    request.getEmail() + " already exist.");
+        }
     }
 
     @Override
@@ -115,6 +124,7 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.sendFriendRequest(id, friendId);
+        timelineService.onSubscriptionChanged(id, friendId);
     }
 
     @Override
@@ -124,6 +134,7 @@ public class UserServiceImpl implements UserService {
 
         userRepository.addUserToFriends(id, friendId);
         userRepository.addUserToFriends(friendId, id);
+        timelineService.onSubscriptionChanged(id, friendId);
     }
 
     @Override
@@ -149,6 +160,7 @@ public class UserServiceImpl implements UserService {
 
         userRepository.unsubscribeFromUser(id, friendId);
         userRepository.rejectFriendship(friendId, id);
+        timelineService.onSubscriptionChanged(id, friendId);
     }
 
     private void checkFriendRequest(int toUserId, int fromUserId) {
@@ -3,11 +3,14 @@ package com.mikhail.tarasevich.socialmedia.service.mapper;
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
 
 public interface PostMapper {
 
     PostResponse toResponse (Post entity);
 
+    PostResponse toResponse (PostView view);
+
     Post toEntity (PostRequest request);
 
 }
@@ -4,6 +4,7 @@ import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
 import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
 import com.mikhail.tarasevich.socialmedia.service.mapper.PostMapper;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +25,18 @@ public class PostMapperImpl implements PostMapper {
                 .build();
     }
 
+    @Override
+    public PostResponse toResponse(PostView view) {
+
+        return PostResponse.builder()
+                .withId(view.getId())
+                .withUserId(view.getUserId())
+                .withHeader(view.getHeader())
+                .withContent(view.getContent())
+                .withCreatedAt(view.getCreatedAt())
+                .build();
+    }
+
     @Override
     public Post toEntity(PostRequest request) {
 
@@ -0,0 +1,26 @@
+package com.mikhail.tarasevich.socialmedia.service.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+public interface BlobStore {
+
+    String put(InputStream content);
+
+    default String put(byte[] content) {
+        return put(new ByteArrayInputStream(content));
+    }
+
+    InputStream open(String key);
+
+    byte[] get(String key);
+
+    Resource resource(String key);
+
+    boolean exists(String key);
+
+    void delete(String key);
+
+}
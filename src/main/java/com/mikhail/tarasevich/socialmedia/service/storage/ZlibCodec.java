@@ -0,0 +1,242 @@
+package com.mikhail.tarasevich.socialmedia.service.storage;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageIncorrectDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+@Component
+public class ZlibCodec {
+
+    private static final int SCRATCH_BUFFER_SIZE = 16 * 1024;
+
+    private final int level;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+    private final BlockingQueue<byte[]> inputBuffers;
+    private final ThreadLocal<byte[]> scratchBuffers = ThreadLocal.withInitial(() -> new byte[SCRATCH_BUFFER_SIZE]);
+
+    @Autowired
+    public ZlibCodec(@Value("${image.compression.level:1}") int level,
+                     @Value("${image.compression.pool-size:8}") int poolSize) {
+        this.level = level;
+        this.deflaters = new ArrayBlockingQueue<>(poolSize);
+        this.inflaters = new ArrayBlockingQueue<>(poolSize);
+        this.inputBuffers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    public InputStream compressStream(InputStream data) {
+
+        return new DeflatingInputStream(data, borrowDeflater(), borrowInputBuffer());
+    }
+
+    public byte[] decompress(byte[] data, Integer originalLength) {
+
+        Inflater inflater = borrowInflater();
+
+        try {
+            inflater.setInput(data);
+
+            return originalLength == null
+                    ? inflate(inflater, data.length)
+                    : inflateExactly(inflater, originalLength);
+        } catch (DataFormatException e) {
+            throw new ImageIncorrectDataException("The image has incorrect data");
+        } finally {
+            release(inflater);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    private byte[] inflateExactly(Inflater inflater, int length) throws DataFormatException {
+
+        byte[] output = new byte[length];
+        int offset = 0;
+
+        while (offset < length && !inflater.finished()) {
+            int count = inflater.inflate(output, offset, length - offset);
+
+            if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+
+            offset += count;
+        }
+
+        if (offset == length && !inflater.finished() && inflater.inflate(scratchBuffers.get()) > 0) {
+            throw new ImageIncorrectDataException("The image is larger than its stored size");
+        }
+
+        if (offset != length || !inflater.finished()) {
+            throw new ImageIncorrectDataException("The image has incorrect data");
+        }
+
+        return output;
+    }
+
+    private byte[] inflate(Inflater inflater, int compressedLength) throws DataFormatException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(SCRATCH_BUFFER_SIZE, compressedLength * 2));
+        byte[] scratch = scratchBuffers.get();
+
+        while (!inflater.finished()) {
+            int count = inflater.inflate(scratch);
+
+            if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new ImageIncorrectDataException("The image has incorrect data");
+            }
+
+            output.write(scratch, 0, count);
+        }
+
+        return output.toByteArray();
+    }
+
+    private Deflater borrowDeflater() {
+
+        Deflater deflater = deflaters.poll();
+
+        return deflater != null ? deflater : new Deflater(level);
+    }
+
+    private Inflater borrowInflater() {
+
+        Inflater inflater = inflaters.poll();
+
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    private byte[] borrowInputBuffer() {
+
+        byte[] buffer = inputBuffers.poll();
+
+        return buffer != null ? buffer : new byte[SCRATCH_BUFFER_SIZE];
+    }
+
+    private void release(Deflater deflater) {
+
+        deflater.reset();
+
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private void release(Inflater inflater) {
+
+        inflater.reset();
+
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    // Same contract as DeflaterInputStream, but the input buffer comes from the pool instead of a new 16 KB array
+    private class DeflatingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final Deflater deflater;
+        private final byte[] buffer;
+        private final byte[] single = new byte[1];
+        private boolean closed;
+
+        private DeflatingInputStream(InputStream in, Deflater deflater, byte[] buffer) {
+            this.in = in;
+            this.deflater = deflater;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+
+            Objects.checkFromIndexSize(off, len, b.length);
+
+            if (len == 0) {
+                return 0;
+            }
+
+            int total = 0;
+
+            while (len > 0 && !deflater.finished()) {
+                if (deflater.needsInput()) {
+                    int count = in.read(buffer, 0, buffer.length);
+
+                    if (count < 0) {
+                        deflater.finish();
+                    } else if (count > 0) {
+                        deflater.setInput(buffer, 0, count);
+                    }
+                }
+
+                int count = deflater.deflate(b, off, len);
+                total += count;
+                off += count;
+                len -= count;
+            }
+
+            return total == 0 && deflater.finished() ? -1 : total;
+        }
+
+        @Override
+        public int available() throws IOException {
+
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+
+            return deflater.finished() ? 0 : 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+                in.close();
+            } finally {
+                release(deflater);
+                inputBuffers.offer(buffer);
+            }
+        }
+
+    }
+
+}
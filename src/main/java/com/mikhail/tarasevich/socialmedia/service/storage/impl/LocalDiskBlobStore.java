@@ -0,0 +1,170 @@
+package com.mikhail.tarasevich.socialmedia.service.storage.impl;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.BlobStoreException;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+
+@Component
+public class LocalDiskBlobStore implements BlobStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+    private final Path tmp;
+
+    @Autowired
+    public LocalDiskBlobStore(@Value("${image.blob-store.root:${java.io.tmpdir}/social-media-blobs}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tmp = this.root.resolve("tmp");
+
+        try {
+            Files.createDirectories(tmp);
+        } catch (IOException e) {
+            throw new BlobStoreException("Blob store directory " + this.root + " is not writable", e);
+        }
+    }
+
+    @Override
+    public String put(InputStream content) {
+
+        Path tempFile = null;
+
+        try {
+            tempFile = Files.createTempFile(tmp, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                OutputStream outputStream = new DigestOutputStream(Channels.newOutputStream(channel), digest);
+                content.transferTo(outputStream);
+                outputStream.flush();
+                channel.force(true);
+            }
+
+            String key = toHex(digest.digest());
+            Path target = pathOf(key);
+
+            if (Files.notExists(target)) {
+                Files.createDirectories(target.getParent());
+
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {
+                }
+            }
+
+            return key;
+        } catch (IOException e) {
+            throw new BlobStoreException("Blob could not be written", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+
+        try {
+            return Files.newInputStream(pathOf(key));
+        } catch (NoSuchFileException e) {
+            throw new BlobStoreException("Blob " + key + " does not exist", e);
+        } catch (IOException e) {
+            throw new BlobStoreException("Blob " + key + " could not be read", e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+
+        try (InputStream inputStream = open(key)) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new BlobStoreException("Blob " + key + " could not be read", e);
+        }
+    }
+
+    @Override
+    public Resource resource(String key) {
+
+        Path path = pathOf(key);
+
+        if (!Files.isRegularFile(path)) {
+            throw new BlobStoreException("Blob " + key + " does not exist");
+        }
+
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+
+        return Files.exists(pathOf(key));
+    }
+
+    @Override
+    public void delete(String key) {
+
+        try {
+            Files.deleteIfExists(pathOf(key));
+        } catch (IOException e) {
+            throw new BlobStoreException("Blob " + key + " could not be deleted", e);
+        }
+    }
+
+    private Path pathOf(String key) {
+
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new BlobStoreException("Invalid blob key " + key);
+        }
+
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static String toHex(byte[] bytes) {
+
+        char[] hex = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(hex);
+    }
+
+    private static void deleteQuietly(Path path) {
+
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+}
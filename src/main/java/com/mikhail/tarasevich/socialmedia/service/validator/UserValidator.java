@@ -4,9 +4,7 @@ import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 
 public interface UserValidator {
 
-    void validateName(UserRequest request);
-
-    void validateEmail(UserRequest request);
+    void validateUniqueness(UserRequest request);
 
     void validatePassword(UserRequest request);
 
@@ -2,11 +2,14 @@ package com.mikhail.tarasevich.socialmedia.service.validator.impl;
 
 import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.repository.projection.UserIdentityView;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.service.validator.UserValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class UserValidatorImpl implements UserValidator {
 
@@ -18,16 +21,23 @@ public class UserValidatorImpl implements UserValidator {
     }
 
     @Override
-    public void validateName(UserRequest request){
-        if (userRepository.findUserByName(request.getName()).isPresent()) {
-            throw new UserNotValidDataException("User with name " + request.getName() + " already exist.");
+    public void validateUniqueness(UserRequest request){
+        List<UserIdentityView> collisions =
+                userRepository.findUserIdentitiesByNameOrEmail(request.getName(), request.getEmail());
+
+        StringBuilder errMsg = new StringBuilder();
+
+        if (collisions.stream().anyMatch(user -> request.getName().equals(user.getName()))) {
+            errMsg.append("User with name ").append(request.getName()).append(" already exist.");
         }
-    }
 
-    @Override
-    public void validateEmail(UserRequest request){
-        if (userRepository.findUserByEmail(request.getEmail()).isPresent()) {
-            throw new UserNotValidDataException("User with email " + request.getEmail() + " already exist.");
+        if (collisions.stream().anyMatch(user -> request.getEmail().equals(user.getEmail()))) {
+            errMsg.append(errMsg.length() > 0 ? " " : "")
+                    .append("User with email ").append(request.getEmail()).append(" already exist.");
+        }
+
+        if (errMsg.length() > 0) {
+            throw new UserNotValidDataException(errMsg.toString());
         }
     }
 
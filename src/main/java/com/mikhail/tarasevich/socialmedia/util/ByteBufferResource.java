@@ -0,0 +1,82 @@
+package com.mikhail.tarasevich.socialmedia.util;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferResource(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public String getDescription() {
+        return "ByteBuffer resource [" + buffer.remaining() + " bytes]";
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof ByteBufferResource && buffer.equals(((ByteBufferResource) other).buffer));
+    }
+
+    @Override
+    public int hashCode() {
+        return buffer.hashCode();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+
+            int skipped = (int) Math.min(Math.max(n, 0), buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
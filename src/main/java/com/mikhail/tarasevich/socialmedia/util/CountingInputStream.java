@@ -0,0 +1,74 @@
+package com.mikhail.tarasevich.socialmedia.util;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class CountingInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    public CountingInputStream(InputStream in) {
+        this(in, Long.MAX_VALUE);
+    }
+
+    public CountingInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        int value = super.read();
+
+        if (value >= 0) {
+            add(1);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+
+        int read = super.read(b, off, len);
+
+        if (read > 0) {
+            add(read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+
+        long skipped = super.skip(n);
+        add(skipped);
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void add(long bytes) {
+
+        count += bytes;
+
+        if (count > limit) {
+            throw new ImageTooLargeException("The image exceeds the maximum size of " + limit + " bytes");
+        }
+    }
+
+}
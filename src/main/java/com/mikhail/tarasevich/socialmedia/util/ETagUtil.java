@@ -0,0 +1,40 @@
+package com.mikhail.tarasevich.socialmedia.util;
+
+import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.List;
+
+public class ETagUtil {
+
+    public static String ofPosts(List<PostResponse> posts) {
+
+        StringBuilder version = new StringBuilder(posts.size() * 32);
+
+        for (PostResponse post : posts) {
+            version.append(post.getId()).append(':');
+
+            if (post.getCreatedAt() != null) {
+                version.append(post.getCreatedAt().toEpochSecond(ZoneOffset.UTC))
+                        .append('.').append(post.getCreatedAt().getNano());
+            }
+
+            version.append(':').append(post.getImages()).append(';');
+        }
+
+        return "\"posts-" + DigestUtils.md5DigestAsHex(version.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    public static String ofImage(int id) {
+
+        return "\"img-" + id + "\"";
+    }
+
+    public static String ofImage(int id, int width) {
+
+        return "\"img-" + id + "-w" + width + "\"";
+    }
+
+}
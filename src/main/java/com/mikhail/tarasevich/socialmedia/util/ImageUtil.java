@@ -1,44 +1,117 @@
 package com.mikhail.tarasevich.socialmedia.util;
 
+import com.mikhail.tarasevich.socialmedia.entity.ImageCodec;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Set;
 
 public class ImageUtil {
 
-    public static byte[] compressImage(byte[] data) {
-        Deflater deflater = new Deflater();
-        deflater.setLevel(Deflater.BEST_COMPRESSION);
-        deflater.setInput(data);
-        deflater.finish();
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        byte[] tmp = new byte[4*1024];
-        while (!deflater.finished()) {
-            int size = deflater.deflate(tmp);
-            outputStream.write(tmp, 0, size);
+    public static final int SNIFF_LENGTH = 16;
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF = {'G', 'I', 'F', '8'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
+    private static final byte[] ISO_MEDIA = {'f', 't', 'y', 'p'};
+    private static final byte[] BMP = {'B', 'M'};
+    private static final byte[] TIFF_LITTLE_ENDIAN = {'I', 'I', '*', 0};
+    private static final byte[] TIFF_BIG_ENDIAN = {'M', 'M', 0, '*'};
+
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of("image/bmp", "image/x-ms-bmp", "image/svg+xml",
+            "image/tiff", "image/x-icon", "image/vnd.microsoft.icon");
+
+    public static ImageCodec chooseCodec(byte[] head, String contentType) {
+
+        if (startsWith(head, 0, PNG) || startsWith(head, 0, JPEG) || startsWith(head, 0, GIF)
+                || (startsWith(head, 0, RIFF) && startsWith(head, 8, WEBP)) || startsWith(head, 4, ISO_MEDIA)) {
+            return ImageCodec.IDENTITY;
         }
-        try {
-            outputStream.close();
-        } catch (Exception ignored) {
+
+        if (startsWith(head, 0, BMP) || startsWith(head, 0, TIFF_LITTLE_ENDIAN) || startsWith(head, 0, TIFF_BIG_ENDIAN)
+                || isMarkup(head)) {
+            return ImageCodec.DEFLATE;
         }
-        return outputStream.toByteArray();
+
+        return contentType != null && COMPRESSIBLE_TYPES.contains(mediaType(contentType))
+                ? ImageCodec.DEFLATE
+                : ImageCodec.IDENTITY;
     }
 
-    public static byte[] decompressImage(byte[] data) {
-        Inflater inflater = new Inflater();
-        inflater.setInput(data);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        byte[] tmp = new byte[4*1024];
-        try {
-            while (!inflater.finished()) {
-                int count = inflater.inflate(tmp);
-                outputStream.write(tmp, 0, count);
+    public static BufferedImage resize(BufferedImage source, int width) {
+
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+
+        // Halving step by step keeps bilinear filtering from dropping pixels on large reductions
+        do {
+            int nextWidth = Math.max(width, current.getWidth() / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) source.getHeight() * nextWidth / source.getWidth()));
+
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
             }
-            outputStream.close();
-        } catch (Exception ignored) {
+
+            current = next;
+        } while (current.getWidth() > width);
+
+        return current;
+    }
+
+    public static String variantType(BufferedImage image) {
+
+        return image.getColorModel().hasAlpha() ? "image/png" : "image/jpeg";
+    }
+
+    public static byte[] encode(BufferedImage image) {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            ImageIO.write(image, image.getColorModel().hasAlpha() ? "png" : "jpeg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static boolean startsWith(byte[] head, int offset, byte[] magic) {
+        if (head.length < offset + magic.length) return false;
+
+        for (int i = 0; i < magic.length; i++) {
+            if (head[offset + i] != magic[i]) return false;
         }
-        return outputStream.toByteArray();
+
+        return true;
+    }
+
+    private static boolean isMarkup(byte[] head) {
+        int i = startsWith(head, 0, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}) ? 3 : 0;
+
+        while (i < head.length && Character.isWhitespace(head[i])) i++;
+
+        return i < head.length && head[i] == '<';
+    }
+
+    private static String mediaType(String contentType) {
+        int parameters = contentType.indexOf(';');
+
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
     }
 
 }
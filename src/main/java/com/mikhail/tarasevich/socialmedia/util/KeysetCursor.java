@@ -0,0 +1,73 @@
+package com.mikhail.tarasevich.socialmedia.util;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+public class KeysetCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final LocalDateTime createdAt;
+    private final int id;
+
+    public KeysetCursor(LocalDateTime createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String encode() {
+
+        String raw = (createdAt == null ? "" : createdAt.toEpochSecond(ZoneOffset.UTC) + "." + createdAt.getNano()) + ":" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            String timestamp = raw.substring(0, separator);
+            int id = Integer.parseInt(raw.substring(separator + 1));
+
+            if (timestamp.isEmpty()) {
+                return new KeysetCursor(null, id);
+            }
+
+            int dot = timestamp.indexOf('.');
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(Long.parseLong(timestamp.substring(0, dot)),
+                    Integer.parseInt(timestamp.substring(dot + 1)), ZoneOffset.UTC);
+
+            return new KeysetCursor(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new IncorrectRequestDataException("Invalid pagination cursor");
+        }
+    }
+
+    public static <T> String next(List<T> items, int itemsPerPage, Function<T, LocalDateTime> createdAt, ToIntFunction<T> id) {
+
+        if (items.isEmpty() || items.size() < itemsPerPage) {
+            return null;
+        }
+
+        T last = items.get(items.size() - 1);
+
+        return new KeysetCursor(createdAt.apply(last), id.applyAsInt(last)).encode();
+    }
+
+}
@@ -27,6 +27,11 @@ VALUES (1, 'First post', 'This is my first post.', '2023-05-26 09:45:00.184705')
        (4, 'Funny meme', 'This meme made me laugh so hard!', '2023-05-22 22:22:22.22'),
        (5, 'Travel memories', 'Throwback to my amazing trip last year.', '2023-05-22 23:22:22.22');
 
+INSERT INTO latest_posts (user_id, post_id, created_at)
+SELECT p.user_id, p.id, p.created_at
+FROM posts p
+WHERE p.id = (SELECT p2.id FROM posts p2 WHERE p2.user_id = p.user_id ORDER BY p2.created_at DESC, p2.id DESC LIMIT 1);
+
 INSERT INTO messages (from_user_id, to_user_id, message, created_at)
 VALUES (1, 2, 'Hey, how are you?', '2023-05-26 09:45:00.184705'),
        (2, 1, 'I''m good, thanks! How about you?', '2023-05-26 09:50:00.184705'),
@@ -36,15 +36,41 @@ CREATE TABLE posts
     created_at TIMESTAMP
 );
 
+CREATE INDEX posts_user_id_created_at_idx ON posts (user_id, created_at);
+
+DROP TABLE IF EXISTS latest_posts CASCADE;
+
+CREATE TABLE latest_posts
+(
+    user_id    INT PRIMARY KEY REFERENCES users (id),
+    post_id    INT NOT NULL REFERENCES posts (id),
+    created_at TIMESTAMP NOT NULL
+);
+
 DROP TABLE IF EXISTS images CASCADE;
 
 CREATE TABLE images
 (
-    id      INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    post_id INT REFERENCES posts (id),
-    name    VARCHAR(50),
-    type    VARCHAR(50),
-    data    BIGINT
+    id            INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    post_id       INT REFERENCES posts (id),
+    name          VARCHAR(50),
+    type          VARCHAR(50),
+    data          BIGINT,
+    blob_key      VARCHAR(64),
+    codec         VARCHAR(16),
+    original_size INT
+);
+
+DROP TABLE IF EXISTS image_variants CASCADE;
+
+CREATE TABLE image_variants
+(
+    id       INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    image_id INT NOT NULL REFERENCES images (id),
+    width    INT NOT NULL,
+    blob_key VARCHAR(64),
+    type     VARCHAR(50),
+    UNIQUE (image_id, width)
 );
 
 DROP TABLE IF EXISTS messages CASCADE;
@@ -56,4 +82,28 @@ CREATE TABLE messages
     to_user_id   INT REFERENCES users (id),
     message      TEXT NOT NULL,
     created_at   TIMESTAMP
-);
\ No newline at end of file
+);
+
+DROP TABLE IF EXISTS refresh_tokens CASCADE;
+
+CREATE TABLE refresh_tokens
+(
+    id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    INT REFERENCES users (id),
+    token_hash VARCHAR(64) UNIQUE NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX refresh_tokens_user_id_idx ON refresh_tokens (user_id);
+
+CREATE INDEX refresh_tokens_expires_at_idx ON refresh_tokens (expires_at);
+
+DROP TABLE IF EXISTS revoked_tokens CASCADE;
+
+CREATE TABLE revoked_tokens
+(
+    id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_key  VARCHAR(320) UNIQUE NOT NULL,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,13 @@
+package com.mikhail.tarasevich.socialmedia.config;
+
+// Stand-ins for the PostgreSQL functions used by native queries, registered in sql/schema.sql
+public final class H2Functions {
+
+    private H2Functions() {
+    }
+
+    public static int loUnlink(long oid) {
+        return 1;
+    }
+
+}
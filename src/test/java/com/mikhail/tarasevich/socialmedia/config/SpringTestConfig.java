@@ -46,6 +46,8 @@ public class SpringTestConfig {
         Properties props = new Properties();
         props.setProperty("hibernate.format_sql", String.valueOf(true));
         props.setProperty("hibernate.connection.autocommit", String.valueOf(true));
+        props.setProperty("hibernate.generate_statistics", String.valueOf(true));
+        props.setProperty("hibernate.session.events.log", String.valueOf(false));
 
         factoryBean.setDataSource(dataSource);
         factoryBean.setPackagesToScan("com.mikhail.tarasevich.socialmedia");
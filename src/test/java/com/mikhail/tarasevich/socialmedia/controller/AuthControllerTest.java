@@ -3,8 +3,17 @@ package com.mikhail.tarasevich.socialmedia.controller;
 import com.mikhail.tarasevich.socialmedia.dto.LoginRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.mikhail.tarasevich.socialmedia.security.CurrentUserArgumentResolver;
 import com.mikhail.tarasevich.socialmedia.security.JWTUtil;
+import com.mikhail.tarasevich.socialmedia.security.PasswordHashingExecutor;
+import com.mikhail.tarasevich.socialmedia.security.UserSecurityDetails;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
 import com.mikhail.tarasevich.socialmedia.service.UserService;
+import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
+import com.mikhail.tarasevich.socialmedia.service.exception.ServiceOverloadedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,15 +25,28 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.security.Principal;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,12 +60,22 @@ class AuthControllerTest {
     private UserService userService;
     @Mock
     private AuthenticationManager authenticationManager;
+    @Mock
+    private PasswordHashingExecutor hashingExecutor;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private TokenRevocationService revocationService;
     private MockMvc mockMvc;
 
     @BeforeEach
     void setup() {
+        lenient().when(hashingExecutor.submit(any()))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(0), Runnable::run));
+
         mockMvc = MockMvcBuilders
                 .standaloneSetup(authController)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver(userService))
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
     }
@@ -66,16 +98,21 @@ class AuthControllerTest {
         String token = "test-token";
 
         when(userService.saveUser(userRequest)).thenReturn(userResponse);
-        when(jwtUtil.generateToken(userResponse.getEmail())).thenReturn(token);
+        when(jwtUtil.generateToken(userResponse.getId(), userResponse.getName(), userResponse.getEmail())).thenReturn(token);
+        when(refreshTokenService.createRefreshToken(userResponse.getId())).thenReturn("refresh-token");
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration")
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/registration")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"John Doe\",\"email\":\"john.doe@example.com\",\"password\":\"1111\",\"confirmPassword\":\"1111\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
-                .andExpect(content().json("{\"token\": \"test-token\"}"));
+                .andExpect(content().json("{\"token\": \"test-token\", \"refreshToken\": \"refresh-token\"}"));
 
         verify(userService, times(1)).saveUser(userRequest);
-        verify(jwtUtil, times(1)).generateToken(userResponse.getEmail());
+        verify(jwtUtil, times(1)).generateToken(userResponse.getId(), userResponse.getName(), userResponse.getEmail());
         verifyNoMoreInteractions(userService, jwtUtil);
     }
 
@@ -95,17 +132,30 @@ class AuthControllerTest {
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword());
 
-        when(jwtUtil.generateToken(loginRequest.getEmail())).thenReturn(token);
+        User user = User.builder()
+                .withId(userResponse.getId())
+                .withName(userResponse.getName())
+                .withEmail(userResponse.getEmail())
+                .build();
+
+        when(authenticationManager.authenticate(authInputToken))
+                .thenReturn(new UsernamePasswordAuthenticationToken(new UserSecurityDetails(user), null));
+        when(jwtUtil.generateToken(user.getId(), user.getName(), user.getEmail())).thenReturn(token);
+        when(refreshTokenService.createRefreshToken(user.getId())).thenReturn("refresh-token");
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"email\":\"john.doe@example.com\",\"password\":\"1111\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(content().json("{\"token\":\"test-token\"}"));
+                .andExpect(content().json("{\"token\":\"test-token\",\"refreshToken\":\"refresh-token\"}"));
 
         verify(authenticationManager, times(1)).authenticate(authInputToken);
-        verify(jwtUtil, times(1)).generateToken(loginRequest.getEmail());
+        verify(jwtUtil, times(1)).generateToken(user.getId(), user.getName(), user.getEmail());
         verifyNoMoreInteractions(authenticationManager, userService, jwtUtil);
     }
 
@@ -121,9 +171,13 @@ class AuthControllerTest {
         when(authenticationManager.authenticate(authInputToken))
                 .thenThrow(new BadCredentialsException("Incorrect credentials"));
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"email\":\"john.doe@example.com\",\"password\":\"1111\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isUnauthorized())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.message").value("Incorrect credentials. Try login again."));
@@ -132,4 +186,92 @@ class AuthControllerTest {
         verifyNoMoreInteractions(authenticationManager);
     }
 
+    @Test
+    void performLogin_hashingExecutorIsFull_returnsServiceUnavailable() throws Exception {
+        doThrow(new ServiceOverloadedException("Too many authentication requests. Try again later.", 1))
+                .when(hashingExecutor).submit(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"john.doe@example.com\",\"password\":\"1111\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many authentication requests. Try again later."));
+
+        verifyNoMoreInteractions(authenticationManager, userService, jwtUtil);
+    }
+
+    @Test
+    void refreshToken_validRefreshToken_returnsNewTokenPair() throws Exception {
+        UserResponse userResponse = UserResponse.builder()
+                .withId(1)
+                .withName("John Doe")
+                .withEmail("john.doe@example.com")
+                .build();
+
+        when(refreshTokenService.consumeRefreshToken("old-refresh-token")).thenReturn(userResponse);
+        when(jwtUtil.generateToken(userResponse.getId(), userResponse.getName(), userResponse.getEmail())).thenReturn("test-token");
+        when(refreshTokenService.createRefreshToken(userResponse.getId())).thenReturn("new-refresh-token");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"old-refresh-token\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"token\":\"test-token\",\"refreshToken\":\"new-refresh-token\"}"));
+
+        verify(refreshTokenService, times(1)).consumeRefreshToken("old-refresh-token");
+        verify(refreshTokenService, times(1)).createRefreshToken(userResponse.getId());
+        verifyNoMoreInteractions(refreshTokenService, authenticationManager, userService);
+    }
+
+    @Test
+    void refreshToken_invalidRefreshToken_returnsUnauthorized() throws Exception {
+        when(refreshTokenService.consumeRefreshToken("used-refresh-token"))
+                .thenThrow(new AuthenticationDataException("Refresh token has already been used. Login again."));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"used-refresh-token\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Refresh token has already been used. Login again."));
+
+        verifyNoMoreInteractions(jwtUtil);
+    }
+
+    @Test
+    void logout_tokenWithId_revokesTokenAndRefreshToken() throws Exception {
+        User user = User.builder().withId(1).withName("John Doe").withEmail("john.doe@example.com").build();
+        Principal principal = new UsernamePasswordAuthenticationToken(new UserSecurityDetails(user), null);
+        Instant expiresAt = Instant.now().plusSeconds(600);
+
+        DecodedJWT decodedJWT = mock(DecodedJWT.class);
+        when(decodedJWT.getId()).thenReturn("token-id");
+        when(decodedJWT.getExpiresAtAsInstant()).thenReturn(expiresAt);
+        when(jwtUtil.verifyToken("test-token")).thenReturn(decodedJWT);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer test-token")
+                        .principal(principal)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"refresh-token\"}"))
+                .andExpect(status().isOk());
+
+        verify(revocationService, times(1)).revokeToken("token-id", expiresAt);
+        verify(refreshTokenService, times(1)).revokeRefreshToken("refresh-token");
+        verifyNoMoreInteractions(revocationService, refreshTokenService);
+    }
+
+    @Test
+    void logoutAll_authenticatedUser_revokesAllUserTokens() throws Exception {
+        User user = User.builder().withId(1).withName("John Doe").withEmail("john.doe@example.com").build();
+        Principal principal = new UsernamePasswordAuthenticationToken(new UserSecurityDetails(user), null);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/auth/logout/all")
+                        .principal(principal))
+                .andExpect(status().isOk());
+
+        verify(revocationService, times(1)).revokeAllUserTokens(1, "john.doe@example.com");
+        verifyNoMoreInteractions(revocationService, userService);
+    }
+
 }
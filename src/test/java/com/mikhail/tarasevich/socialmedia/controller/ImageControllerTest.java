@@ -1,21 +1,35 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
 import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.ImageVariantService;
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
@@ -26,6 +40,8 @@ class ImageControllerTest {
     private ImageController imageController;
     @Mock
     private ImageService imageService;
+    @Mock
+    private ImageVariantService imageVariantService;
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -38,18 +54,136 @@ class ImageControllerTest {
 
     @Test
     void downloadImage_validId_returnsImageBytes() throws Exception {
-        byte[] imageData = {};
+        byte[] imageData = {1, 2, 3};
         int imageId = 1;
 
-        when(imageService.downloadImage(imageId)).thenReturn(imageData);
+        when(imageService.downloadImage(imageId)).thenReturn(image(new ByteArrayResource(imageData), "image/png"));
 
         mockMvc.perform(get("/api/v1/image/1", imageId))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"img-1\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
                 .andExpect(content().bytes(imageData));
 
         verify(imageService, times(1)).downloadImage(imageId);
         verifyNoMoreInteractions(imageService);
     }
 
+    @Test
+    void downloadImage_rangeRequest_returnPartialContentFromFile(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("blob"), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        when(imageService.downloadImage(1)).thenReturn(image(new FileSystemResource(file), "image/png"));
+
+        mockMvc.perform(get("/api/v1/image/1")
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(new byte[]{2, 3, 4, 5}));
+    }
+
+    @Test
+    void downloadImage_matchingIfNoneMatch_returnNotModified() throws Exception {
+
+        when(imageService.downloadImage(1)).thenReturn(image(new ByteArrayResource(new byte[]{1, 2, 3}), "image/png"));
+
+        mockMvc.perform(get("/api/v1/image/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"img-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"img-1\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void downloadImage_deletedImageWithMatchingIfNoneMatch_returnBadRequest() throws Exception {
+
+        when(imageService.downloadImage(1))
+                .thenThrow(new IncorrectRequestDataException("There is no image with id = 1 in file repository"));
+
+        mockMvc.perform(get("/api/v1/image/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"img-1\""))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void downloadImage_widthWithReadyVariant_returnsVariantWithOwnETag() throws Exception {
+        byte[] variantData = {4, 5};
+
+        when(imageVariantService.downloadImageVariant(1, 320))
+                .thenReturn(Optional.of(image(new ByteArrayResource(variantData), "image/jpeg")));
+
+        mockMvc.perform(get("/api/v1/image/1").param("w", "320"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"img-1-w320\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(content().bytes(variantData));
+
+        verifyNoInteractions(imageService);
+    }
+
+    @Test
+    void downloadImage_widthWithVariantInProgress_returnsUncachedOriginal() throws Exception {
+        byte[] imageData = {1, 2, 3};
+
+        when(imageVariantService.downloadImageVariant(1, 320)).thenReturn(Optional.empty());
+        when(imageService.downloadImage(1)).thenReturn(image(new ByteArrayResource(imageData), "image/webp"));
+
+        mockMvc.perform(get("/api/v1/image/1").param("w", "320"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/webp"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().bytes(imageData));
+    }
+
+    @Test
+    void downloadImage_widthWithMatchingIfNoneMatch_returnNotModified() throws Exception {
+
+        when(imageVariantService.downloadImageVariant(1, 320))
+                .thenReturn(Optional.of(image(new ByteArrayResource(new byte[]{4, 5}), "image/jpeg")));
+
+        mockMvc.perform(get("/api/v1/image/1")
+                        .param("w", "320")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"img-1-w320\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verifyNoInteractions(imageService);
+    }
+
+    @Test
+    void downloadImage_storedSvg_serveWithItsTypeInSandbox() throws Exception {
+
+        when(imageService.downloadImage(1)).thenReturn(image(new ByteArrayResource(new byte[]{'<'}), "image/svg+xml"));
+
+        mockMvc.perform(get("/api/v1/image/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox"));
+    }
+
+    @Test
+    void downloadImage_storedNonImageOrMissingType_serveAsOctetStream() throws Exception {
+
+        when(imageService.downloadImage(1)).thenReturn(image(new ByteArrayResource(new byte[]{1}), "text/html"));
+        when(imageService.downloadImage(2)).thenReturn(image(new ByteArrayResource(new byte[]{1}), null));
+
+        mockMvc.perform(get("/api/v1/image/1"))
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
+        mockMvc.perform(get("/api/v1/image/2"))
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
+    }
+
+    private static ImageResponse image(Resource content, String type) {
+        return ImageResponse.builder()
+                .withContent(content)
+                .withType(type)
+                .build();
+    }
+
 }
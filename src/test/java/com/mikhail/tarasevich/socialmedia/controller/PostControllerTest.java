@@ -1,6 +1,10 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.security.CurrentUserArgumentResolver;
 import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.ImageVariantService;
+import com.mikhail.tarasevich.socialmedia.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,12 +32,17 @@ class PostControllerTest {
     private PostController postController;
     @Mock
     private ImageService imageService;
+    @Mock
+    private ImageVariantService imageVariantService;
+    @Mock
+    private UserService userService;
     private MockMvc mockMvc;
 
     @BeforeEach
     void setup() {
         mockMvc = MockMvcBuilders
                 .standaloneSetup(postController)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver(userService))
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
     }
@@ -45,7 +54,8 @@ class PostControllerTest {
         MockMultipartFile image = new MockMultipartFile("image", "image.jpg", "image/jpeg", "test image".getBytes());
         int imageId = 1;
 
-        when(imageService.uploadImage(image, postId, "john@example.com")).thenReturn(imageId);
+        when(userService.findUserByEmail("john@example.com")).thenReturn(UserResponse.builder().withId(1).withEmail("john@example.com").build());
+        when(imageService.uploadImage(image, postId, 1)).thenReturn(imageId);
 
         mockMvc.perform(multipart("/api/v1/post/{id}/image", postId)
                         .file(image)
@@ -53,8 +63,9 @@ class PostControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Image with id = " + imageId + " was successfully added to post with id = " + postId));
 
-        verify(imageService, times(1)).uploadImage(image, postId, "john@example.com");
-        verifyNoMoreInteractions(imageService);
+        verify(imageService, times(1)).uploadImage(image, postId, 1);
+        verify(imageVariantService, times(1)).scheduleVariants(imageId);
+        verifyNoMoreInteractions(imageService, imageVariantService);
     }
 
 }
\ No newline at end of file
@@ -1,38 +1,57 @@
 package com.mikhail.tarasevich.socialmedia.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mikhail.tarasevich.socialmedia.dto.MessageRequest;
 import com.mikhail.tarasevich.socialmedia.dto.MessageResponse;
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
 import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.security.CurrentUserArgumentResolver;
+import com.mikhail.tarasevich.socialmedia.security.UserSecurityDetails;
 import com.mikhail.tarasevich.socialmedia.service.MessageService;
 import com.mikhail.tarasevich.socialmedia.service.PostService;
 import com.mikhail.tarasevich.socialmedia.service.UserService;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,12 +65,15 @@ class UserControllerTest {
     private PostService postService;
     @Mock
     private MessageService messageService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
     private MockMvc mockMvc;
 
     @BeforeEach
     void setup() {
         mockMvc = MockMvcBuilders
                 .standaloneSetup(userController)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver(userService))
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
     }
@@ -73,6 +95,19 @@ class UserControllerTest {
         verifyNoMoreInteractions(userService);
     }
 
+    @Test
+    void showUser_userSecurityDetailsPrincipal_returnUserResponseWithoutQuery() throws Exception {
+        User user = User.builder().withId(1).withName("John").withEmail("john@example.com").build();
+        Principal principal = new UsernamePasswordAuthenticationToken(new UserSecurityDetails(user), null);
+
+        mockMvc.perform(get("/api/v1/user/")
+                        .principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\": 1,\"name\":\"John\",\"email\":\"john@example.com\"}"));
+
+        verifyNoInteractions(userService);
+    }
+
     @Test
     void showUserFriends_authenticatedUser_returnListOfUserResponses() throws Exception {
         Principal principal = () -> "john@example.com";
@@ -228,18 +263,108 @@ class UserControllerTest {
         PostResponse postResponse = PostResponse.builder().withId(1).withContent("Hello").build();
 
         when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
-        when(postService.findAllPostsRelateToUser(1)).thenReturn(List.of(postResponse));
+        when(postService.findAllPostsRelateToUser(1, 10, null)).thenReturn(List.of(postResponse));
 
         mockMvc.perform(get("/api/v1/user/post")
                         .principal(principal))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER))
                 .andExpect(content().json("[{\"id\": 1,\"content\":\"Hello\"}]"));
 
         verify(userService, times(1)).findUserByEmail("john@example.com");
-        verify(postService, times(1)).findAllPostsRelateToUser(1);
+        verify(postService, times(1)).findAllPostsRelateToUser(1, 10, null);
         verifyNoMoreInteractions(userService, postService);
     }
 
+    @Test
+    void showLastPostOfSubscriptions_matchingIfNoneMatch_returnNotModified() throws Exception {
+        Principal principal = () -> "john@example.com";
+
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build();
+        List<PostResponse> posts = List.of(PostResponse.builder().withId(1).withContent("Hello")
+                .withCreatedAt(LocalDateTime.of(2023, 5, 26, 9, 45)).withImages(List.of(2)).build());
+
+        when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
+        when(postService.findLastPostOfSubscriptions(1, 3, 1)).thenReturn(posts);
+
+        String eTag = mockMvc.perform(get("/api/v1/user/post/subscription")
+                        .principal(principal)
+                        .param("itemsPerPage", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/user/post/subscription")
+                        .principal(principal)
+                        .param("itemsPerPage", "3")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        posts.get(0).setImages(List.of(2, 3));
+
+        mockMvc.perform(get("/api/v1/user/post/subscription")
+                        .principal(principal)
+                        .param("itemsPerPage", "3")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void showAllUserPosts_fullPageWithCursor_returnNextCursorHeader() throws Exception {
+        Principal principal = () -> "john@example.com";
+
+        LocalDateTime createdAt = LocalDateTime.of(2023, 5, 26, 9, 45);
+        String cursor = new KeysetCursor(LocalDateTime.of(2023, 5, 27, 10, 0), 7).encode();
+
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build();
+        PostResponse postResponse = PostResponse.builder().withId(5).withContent("Hello").withCreatedAt(createdAt).build();
+
+        when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
+        when(postService.findAllPostsRelateToUser(eq(1), eq(1), any(KeysetCursor.class))).thenReturn(List.of(postResponse));
+
+        mockMvc.perform(get("/api/v1/user/post")
+                        .principal(principal)
+                        .param("itemsPerPage", "1")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER, new KeysetCursor(createdAt, 5).encode()))
+                .andExpect(content().json("[{\"id\": 5,\"content\":\"Hello\"}]"));
+
+        verify(postService, times(1)).findAllPostsRelateToUser(eq(1), eq(1), any(KeysetCursor.class));
+    }
+
+    @Test
+    void streamAllUserPosts_authenticatedUser_returnNdjson() throws Exception {
+        Principal principal = () -> "john@example.com";
+
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build();
+
+        when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
+        doAnswer(invocation -> {
+            Consumer<PostResponse> action = invocation.getArgument(1);
+            action.accept(PostResponse.builder().withId(2).withContent("Second").build());
+            action.accept(PostResponse.builder().withId(1).withContent("First").build());
+            return null;
+        }).when(postService).streamAllPostsRelateToUser(eq(1), any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/user/post/stream")
+                        .principal(principal))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":2"));
+        assertTrue(lines[1].contains("\"id\":1"));
+        verify(postService, times(1)).streamAllPostsRelateToUser(eq(1), any());
+    }
+
     @Test
     void showLastPostOfSubscriptions_authenticatedUser_returnPostResponseList() throws Exception {
         Principal principal = () -> "john@example.com";
@@ -265,6 +390,47 @@ class UserControllerTest {
         verifyNoMoreInteractions(userService, postService);
     }
 
+    @Test
+    void showLastPostOfSubscriptions_cursorGiven_returnNextPageAndNextCursor() throws Exception {
+        Principal principal = () -> "john@example.com";
+
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build();
+        LocalDateTime createdAt = LocalDateTime.of(2023, 5, 26, 9, 45, 0, 184705000);
+        PostResponse postResponse = PostResponse.builder().withId(7).withContent("Hello").withCreatedAt(createdAt).build();
+        KeysetCursor cursor = new KeysetCursor(createdAt.plusMinutes(1), 9);
+
+        when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
+        when(postService.findLastPostOfSubscriptions(eq(1), eq(1), any(KeysetCursor.class))).thenReturn(List.of(postResponse));
+
+        mockMvc.perform(get("/api/v1/user/post/subscription")
+                        .principal(principal)
+                        .param("itemsPerPage", "1")
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER, new KeysetCursor(createdAt, 7).encode()))
+                .andExpect(content().json("[{\"id\": 7,\"content\":\"Hello\"}]"));
+
+        verify(postService, times(1)).findLastPostOfSubscriptions(eq(1), eq(1), any(KeysetCursor.class));
+        verifyNoMoreInteractions(postService);
+    }
+
+    @Test
+    void showLastPostOfSubscriptions_malformedCursor_returnBadRequest() throws Exception {
+        Principal principal = () -> "john@example.com";
+
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build();
+
+        when(userService.findUserByEmail("john@example.com")).thenReturn(userResponse);
+
+        mockMvc.perform(get("/api/v1/user/post/subscription")
+                        .principal(principal)
+                        .param("itemsPerPage", "1")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(postService);
+    }
+
     @Test
     void addPost_authenticatedUser_validPostRequest_returnOkResponse() throws Exception {
         Principal principal = () -> "john@example.com";
@@ -273,7 +439,8 @@ class UserControllerTest {
 
         PostResponse postResponse = PostResponse.builder().withId(1).withHeader("Hello World").withContent("Hello World").build();
 
-        when(postService.createPost(postRequest, "john@example.com")).thenReturn(postResponse);
+        when(userService.findUserByEmail("john@example.com")).thenReturn(UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build());
+        when(postService.createPost(postRequest, 1)).thenReturn(postResponse);
 
         mockMvc.perform(post("/api/v1/user/post")
                         .principal(principal)
@@ -282,7 +449,7 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Post was successfully saved with id = 1"));
 
-        verify(postService, times(1)).createPost(postRequest, "john@example.com");
+        verify(postService, times(1)).createPost(postRequest, 1);
         verifyNoMoreInteractions(postService);
     }
 
@@ -292,6 +459,8 @@ class UserControllerTest {
 
         PostRequest postRequest = PostRequest.builder().withId(1).withHeader("Hello World").withContent("Hello World").build();
 
+        when(userService.findUserByEmail("john@example.com")).thenReturn(UserResponse.builder().withId(1).withName("John").withEmail("john@example.com").build());
+
         mockMvc.perform(put("/api/v1/user/post")
                         .principal(principal)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -299,7 +468,7 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Post was successfully update"));
 
-        verify(postService, times(1)).updatePost(postRequest, "john@example.com");
+        verify(postService, times(1)).updatePost(postRequest, 1);
         verifyNoMoreInteractions(postService);
     }
 
@@ -1,6 +1,7 @@
 package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostImageIdView;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -26,4 +27,30 @@ class ImageRepositoryTest {
         assertEquals(2, imagesId.get(1));
     }
 
+    @Test
+    void findImageIdsByPostIds_inputPostIds_expectedImageIdsGroupedByPost() {
+
+        List<PostImageIdView> views = ir.findImageIdsByPostIds(List.of(1, 3, 2));
+
+        assertEquals(3, views.size());
+        assertEquals(1, views.get(0).getPostId());
+        assertEquals(1, views.get(0).getImageId());
+        assertEquals(1, views.get(1).getPostId());
+        assertEquals(2, views.get(1).getImageId());
+        assertEquals(3, views.get(2).getPostId());
+        assertEquals(3, views.get(2).getImageId());
+    }
+
+    @Test
+    void findIdsOfImagesStoredInDb_inputLimit_expectedIdsOfImagesWithoutBlobKey() {
+
+        assertEquals(List.of(1, 2, 3), ir.findIdsOfImagesStoredInDb(3));
+    }
+
+    @Test
+    void unlinkDataOfImages_inputIds_expectedOneResultPerStoredObject() {
+
+        assertEquals(List.of(1, 1), ir.unlinkDataOfImages(List.of(1, 2)));
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.entity.ImageVariant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class ImageVariantRepositoryTest {
+
+    @Autowired
+    private ImageVariantRepository ivr;
+
+    @Test
+    void findByImageIdAndWidth_existingVariant_expectedVariant() {
+
+        Optional<ImageVariant> variant = ivr.findByImageIdAndWidth(1, 160);
+
+        assertTrue(variant.isPresent());
+        assertEquals("6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d", variant.get().getBlobKey());
+        assertEquals("image/jpeg", variant.get().getType());
+    }
+
+    @Test
+    void findByImageIdAndWidth_variantServedByOriginal_expectedVariantWithoutBlobKey() {
+
+        assertNull(ivr.findByImageIdAndWidth(1, 320).orElseThrow().getBlobKey());
+    }
+
+    @Test
+    void findByImageIdAndWidth_missingVariant_expectedEmpty() {
+
+        assertTrue(ivr.findByImageIdAndWidth(2, 160).isEmpty());
+    }
+
+    @Test
+    void findWidthsByImageId_inputImageId_expectedWidthsOfStoredVariants() {
+
+        assertEquals(List.of(160, 320), ivr.findWidthsByImageId(1));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.entity.LatestPost;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class LatestPostRepositoryTest {
+
+    @Autowired
+    private LatestPostRepository lpr;
+
+    @Test
+    void findById_inputUserId_expectedLatestPostFromBackfill() {
+
+        Optional<LatestPost> latestPost = lpr.findById(1);
+
+        assertTrue(latestPost.isPresent());
+        assertEquals(2, latestPost.get().getPostId());
+    }
+
+    @Test
+    void findLatestPostsOfSubscriptions_inputUserIdAndLimit_expectedNewestFirst() {
+
+        List<LatestPost> latestPosts = lpr.findLatestPostsOfSubscriptions(3, 10);
+
+        assertEquals(2, latestPosts.size());
+        assertEquals(2, latestPosts.get(0).getPostId());
+        assertEquals(5, latestPosts.get(1).getPostId());
+        assertEquals(1, lpr.findLatestPostsOfSubscriptions(3, 1).size());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void insertLatestPostOfUser_inputUserIdAndDeletedPostId_expectedPreviousPostBecomesLatest() {
+
+        assertEquals(1, lpr.deleteLatestPostByPostId(2));
+        assertFalse(lpr.findById(1).isPresent());
+
+        lpr.insertLatestPostOfUser(1, 2);
+
+        assertEquals(1, lpr.findById(1).orElseThrow().getPostId());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteLatestPostByPostId_inputNotLatestPostId_expectedNothingDeleted() {
+
+        assertEquals(0, lpr.deleteLatestPostByPostId(1));
+        assertEquals(2, lpr.findById(1).orElseThrow().getPostId());
+    }
+
+}
@@ -1,14 +1,20 @@
 package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
-import com.mikhail.tarasevich.socialmedia.entity.Post;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = SpringTestConfig.class)
 class PostRepositoryTest {
@@ -18,26 +24,103 @@ class PostRepositoryTest {
 
 
     @Test
-    void findLatestPostsOfSubscribers_inputUserId_expectedListWithPosts() {
+    void findLatestPostsOfSubscribers_inputUserIdAndLargeLimit_expectedAllLatestPosts() {
 
-        List<Post> posts = pr.findLatestPostsOfSubscribers(3);
+        List<PostView> posts = pr.findLatestPostsOfSubscribers(3, 10, 0);
 
         assertEquals(2, posts.size());
         assertEquals("Hello, world!", posts.get(0).getHeader());
         assertEquals("Just saying hello to everyone.", posts.get(0).getContent());
         assertEquals("Funny meme", posts.get(1).getHeader());
         assertEquals("This meme made me laugh so hard!", posts.get(1).getContent());
+        assertEquals(1, posts.get(0).getUserId());
+        assertEquals(4, posts.get(1).getUserId());
+        assertEquals(LocalDateTime.of(2023, 5, 22, 22, 22, 22, 220_000_000), posts.get(1).getCreatedAt());
     }
 
 
     @Test
     void findLatestPostsOfSubscribersPageable_inputUserIdLimitOffset_expectedListWithPosts() {
 
-        List<Post> posts = pr.findLatestPostsOfSubscribers(3, 1, 0);
+        List<PostView> posts = pr.findLatestPostsOfSubscribers(3, 1, 0);
 
         assertEquals(1, posts.size());
         assertEquals("Hello, world!", posts.get(0).getHeader());
         assertEquals("Just saying hello to everyone.", posts.get(0).getContent());
     }
 
+    @Test
+    void findLatestPostsOfSubscribersBefore_inputCursorOfFirstPost_expectedNextPost() {
+
+        List<PostView> firstPage = pr.findLatestPostsOfSubscribers(3, 1, 0);
+
+        List<PostView> posts = pr.findLatestPostsOfSubscribersBefore(3, firstPage.get(0).getCreatedAt(),
+                firstPage.get(0).getId(), 10);
+
+        assertEquals(1, posts.size());
+        assertEquals("Funny meme", posts.get(0).getHeader());
+    }
+
+    @Test
+    void findPostViewsByUserId_inputUserIdAndLargeLimit_expectedPostsOfUser() {
+
+        List<PostView> posts = pr.findPostViewsByUserId(1, 10);
+
+        assertEquals(2, posts.size());
+        assertEquals(2, posts.get(0).getId());
+        assertEquals(1, posts.get(1).getId());
+        assertEquals(1, posts.get(1).getUserId());
+        assertEquals("First post", posts.get(1).getHeader());
+        assertEquals("This is my first post.", posts.get(1).getContent());
+        assertEquals(LocalDateTime.of(2023, 5, 26, 9, 45, 0, 184_705_000), posts.get(1).getCreatedAt());
+    }
+
+    @Test
+    void findPostViewById_inputId_expectedPostWithAuthorId() {
+
+        PostView post = pr.findPostViewById(5).orElseThrow();
+
+        assertEquals("Funny meme", post.getHeader());
+        assertEquals(4, post.getUserId());
+        assertTrue(pr.findPostViewById(42).isEmpty());
+    }
+
+    @Test
+    void findPostViewsByIdIn_inputIds_expectedRequestedPosts() {
+
+        List<PostView> posts = pr.findPostViewsByIdIn(List.of(5, 3, 42));
+
+        assertEquals(2, posts.size());
+        assertEquals(Set.of(3, 5), posts.stream().map(PostView::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void findPostViewsByUserIdPageable_inputUserIdAndLimit_expectedNewestPosts() {
+
+        List<PostView> posts = pr.findPostViewsByUserId(1, 1);
+
+        assertEquals(1, posts.size());
+        assertEquals("Hello, world!", posts.get(0).getHeader());
+    }
+
+    @Test
+    void findPostViewsByUserIdBefore_inputCursorOfFirstPost_expectedOlderPost() {
+
+        PostView first = pr.findPostViewsByUserId(1, 1).get(0);
+
+        List<PostView> posts = pr.findPostViewsByUserIdBefore(1, first.getCreatedAt(), first.getId(), 10);
+
+        assertEquals(1, posts.size());
+        assertEquals("First post", posts.get(0).getHeader());
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void streamPostViewsByUserId_inputUserId_expectedNewestPostsFirst() {
+
+        try (Stream<PostView> posts = pr.streamPostViewsByUserId(1)) {
+            assertEquals(List.of(2, 1), posts.map(PostView::getId).collect(Collectors.toList()));
+        }
+    }
+
 }
@@ -0,0 +1,65 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.entity.RefreshToken;
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository rtr;
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteRefreshTokenById_inputId_expectedTokenCanBeDeletedOnlyOnce() {
+
+        RefreshToken saved = rtr.save(RefreshToken.builder()
+                .withUser(User.builder().withId(1).build())
+                .withTokenHash("hash")
+                .withExpiresAt(LocalDateTime.now().plusDays(1))
+                .build());
+
+        Optional<RefreshToken> found = rtr.findByTokenHash("hash");
+
+        assertTrue(found.isPresent());
+        assertEquals("john.smith@example.com", found.get().getUser().getEmail());
+        assertEquals(1, rtr.deleteRefreshTokenById(saved.getId()));
+        assertEquals(0, rtr.deleteRefreshTokenById(saved.getId()));
+        assertFalse(rtr.findByTokenHash("hash").isPresent());
+    }
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void deleteExpiredTokens_inputNow_expectedOnlyExpiredTokensDeleted() {
+
+        rtr.save(RefreshToken.builder()
+                .withUser(User.builder().withId(1).build())
+                .withTokenHash("expired")
+                .withExpiresAt(LocalDateTime.now().minusDays(1))
+                .build());
+        rtr.save(RefreshToken.builder()
+                .withUser(User.builder().withId(1).build())
+                .withTokenHash("active")
+                .withExpiresAt(LocalDateTime.now().plusDays(1))
+                .build());
+
+        assertEquals(1, rtr.deleteExpiredTokens(LocalDateTime.now()));
+        assertFalse(rtr.findByTokenHash("expired").isPresent());
+        assertTrue(rtr.findByTokenHash("active").isPresent());
+    }
+
+}
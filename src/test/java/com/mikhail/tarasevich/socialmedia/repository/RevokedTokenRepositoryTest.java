@@ -0,0 +1,43 @@
+package com.mikhail.tarasevich.socialmedia.repository;
+
+import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.entity.RevokedToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+class RevokedTokenRepositoryTest {
+
+    @Autowired
+    private RevokedTokenRepository rtr;
+
+    @Test
+    @Sql(scripts = {"classpath:sql/schema.sql", "classpath:sql/data.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void findActiveTokenKeys_inputNow_expectedOnlyNotExpiredKeys() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        rtr.save(RevokedToken.builder().withTokenKey("jti:expired").withRevokedAt(now.minusHours(2))
+                .withExpiresAt(now.minusHours(1)).build());
+        rtr.save(RevokedToken.builder().withTokenKey("jti:active").withRevokedAt(now)
+                .withExpiresAt(now.plusHours(1)).build());
+
+        List<String> tokenKeys = rtr.findActiveTokenKeys(now);
+
+        assertEquals(List.of("jti:active"), tokenKeys);
+        assertEquals(1, rtr.deleteExpiredTokens(now));
+        assertFalse(rtr.findByTokenKey("jti:expired").isPresent());
+        assertTrue(rtr.findByTokenKey("jti:active").isPresent());
+    }
+
+}
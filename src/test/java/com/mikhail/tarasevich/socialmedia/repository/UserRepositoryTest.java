@@ -2,6 +2,7 @@ package com.mikhail.tarasevich.socialmedia.repository;
 
 import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
 import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.projection.UserIdentityView;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -54,6 +55,23 @@ class UserRepositoryTest {
         assertEquals(email, user.get().getEmail());
     }
 
+    @Test
+    void findUserIdentitiesByNameOrEmail_inputNameAndEmailOfDifferentUsers_expectedBothCollisions() {
+
+        List<UserIdentityView> identities =
+                ur.findUserIdentitiesByNameOrEmail("John Smith", "emily.johnson@example.com");
+
+        assertEquals(2, identities.size());
+        assertTrue(identities.stream().anyMatch(identity -> "John Smith".equals(identity.getName())));
+        assertTrue(identities.stream().anyMatch(identity -> "emily.johnson@example.com".equals(identity.getEmail())));
+    }
+
+    @Test
+    void findUserIdentitiesByNameOrEmail_inputUnusedNameAndEmail_expectedEmptyList() {
+
+        assertTrue(ur.findUserIdentitiesByNameOrEmail("Unknown", "unknown@example.com").isEmpty());
+    }
+
     @Test
     void findUserFriendRequests_inputName_expectedOptionalUser() {
 
@@ -0,0 +1,237 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthRateLimitFilterTest {
+
+    private static final String LOGIN_BODY = "{\"email\":\"John.Doe@example.com\",\"password\":\"secret\"}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AuthRateLimitFilter(60, 10, 1, 1, 100, 64, new ObjectMapper().findAndRegisterModules(), meterRegistry);
+    }
+
+    @Test
+    void doFilter_allowedLogin_replayBodyToController() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), chain);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(LOGIN_BODY, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_allowedLogin_replayBodyThroughReader() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), chain);
+
+        assertEquals(LOGIN_BODY, chain.getRequest().getReader().lines().collect(Collectors.joining()));
+    }
+
+    @Test
+    void doFilter_allowedLogin_runReadListenerOverBufferedBody() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+        perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), chain);
+
+        ServletInputStream inputStream = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] allDataRead = new boolean[1];
+
+        inputStream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                int count;
+                while (inputStream.isReady() && (count = inputStream.read(buffer)) != -1) {
+                    read.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+        });
+
+        assertTrue(allDataRead[0]);
+        assertTrue(inputStream.isFinished());
+        assertEquals(LOGIN_BODY, read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_emailLimitExceededFromAnotherIp_returnTooManyRequestsWithRetryAfter() throws ServletException, IOException {
+
+        perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), new MockFilterChain());
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login", "10.0.0.2",
+                "{\"email\":\" john.doe@EXAMPLE.com \",\"password\":\"other\"}"), chain);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("60", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("Too many authentication attempts"));
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("auth.rate-limit.rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_ipLimitExceeded_returnTooManyRequests() throws ServletException, IOException {
+
+        AuthRateLimitFilter strictFilter = new AuthRateLimitFilter(1, 1, 60, 10, 100, 64, new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        strictFilter.doFilter(post("/api/v1/auth/refresh", "10.0.0.1", "{}"), first, new MockFilterChain());
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        strictFilter.doFilter(post("/api/v1/auth/refresh", "10.0.0.1", "{}"), second, new MockFilterChain());
+
+        assertEquals(HttpStatus.OK.value(), first.getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), second.getStatus());
+        assertEquals("60", second.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void doFilter_oversizedBody_returnPayloadTooLargeWithoutCallingController() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+        String padded = "{\"email\":\"john.doe@example.com\"" + " ".repeat(64) + "}";
+
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login", "10.0.0.1", padded), chain);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_unparseableBody_returnBadRequest() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login", "10.0.0.1", "{\"email\":"), chain);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_loginWithoutEmail_returnBadRequest() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login", "10.0.0.1", "{\"password\":\"secret\"}"), chain);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_refreshWithoutEmail_passToController() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        perform(post("/api/v1/auth/refresh", "10.0.0.1", "{\"refreshToken\":\"token\"}"), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_trailingSlashOnLimitedPath_stillLimited() throws ServletException, IOException {
+
+        perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), new MockFilterChain());
+
+        MockHttpServletResponse response = perform(post("/api/v1/auth/login/", "10.0.0.1", LOGIN_BODY), new MockFilterChain());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    }
+
+    @Test
+    void doFilter_duplicateSlashesAndPathParameters_stillLimited() throws ServletException, IOException {
+
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = perform(post("/api/v1//auth/login;jsessionid=1", "10.0.0.1", "not json"), chain);
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_otherPathOrMethod_notLimited() throws ServletException, IOException {
+
+        MockFilterChain postChain = new MockFilterChain();
+        perform(post("/api/v1/user/post", "10.0.0.1", "not json"), postChain);
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/v1/auth/login");
+        MockFilterChain getChain = new MockFilterChain();
+        perform(get, getChain);
+
+        assertNotNull(postChain.getRequest());
+        assertNotNull(getChain.getRequest());
+    }
+
+    @Test
+    void evictIdleBuckets_freshBuckets_keepThemUntilRefilled() throws ServletException, IOException {
+
+        perform(post("/api/v1/auth/login", "10.0.0.1", LOGIN_BODY), new MockFilterChain());
+
+        filter.evictIdleBuckets();
+
+        assertEquals(2, meterRegistry.get("auth.rate-limit.buckets").gauge().value());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, MockFilterChain chain)
+            throws ServletException, IOException {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String uri, String remoteAddress, String body) {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(remoteAddress);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        return request;
+    }
+
+}
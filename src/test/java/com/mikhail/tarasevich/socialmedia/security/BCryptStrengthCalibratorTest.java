@@ -0,0 +1,27 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    void calibrate_targetBelowProbeCost_returnMinStrength() {
+
+        assertEquals(10, BCryptStrengthCalibrator.calibrate(0, 10, 14));
+    }
+
+    @Test
+    void calibrate_unreachableTarget_returnMaxStrength() {
+
+        assertEquals(9, BCryptStrengthCalibrator.calibrate(Long.MAX_VALUE, 4, 9));
+    }
+
+    @Test
+    void calibrate_maxStrengthBelowProbeStrength_returnMaxStrength() {
+
+        assertEquals(6, BCryptStrengthCalibrator.calibrate(0, 4, 6));
+    }
+
+}
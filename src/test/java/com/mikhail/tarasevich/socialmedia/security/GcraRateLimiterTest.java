@@ -0,0 +1,90 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GcraRateLimiterTest {
+
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void tryAcquire_burstOfRequests_allowBurstThenReturnWaitOfOneInterval() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 3, 100);
+
+        assertEquals(0, limiter.tryAcquire("key", START));
+        assertEquals(0, limiter.tryAcquire("key", START));
+        assertEquals(0, limiter.tryAcquire("key", START));
+        assertEquals(INTERVAL, limiter.tryAcquire("key", START));
+    }
+
+    @Test
+    void tryAcquire_afterEmissionInterval_refillOneRequest() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 2, 100);
+
+        limiter.tryAcquire("key", START);
+        limiter.tryAcquire("key", START);
+
+        assertEquals(INTERVAL / 2, limiter.tryAcquire("key", START + INTERVAL / 2));
+        assertEquals(0, limiter.tryAcquire("key", START + INTERVAL));
+        assertEquals(INTERVAL, limiter.tryAcquire("key", START + INTERVAL));
+    }
+
+    @Test
+    void tryAcquire_rejectedRequest_doesNotConsumeCapacity() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 1, 100);
+
+        limiter.tryAcquire("key", START);
+        limiter.tryAcquire("key", START);
+        limiter.tryAcquire("key", START);
+
+        assertEquals(0, limiter.tryAcquire("key", START + INTERVAL));
+    }
+
+    @Test
+    void tryAcquire_differentKeys_useIndependentBuckets() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("first", START));
+        assertEquals(0, limiter.tryAcquire("second", START));
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void tryAcquire_floodOfDistinctKeys_doesNotThrottleFreshKey() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 1, 10);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("flood-" + i, START);
+        }
+
+        assertEquals(0, limiter.tryAcquire("fresh", START));
+        assertTrue(limiter.size() <= 10);
+    }
+
+    @Test
+    void evictIdle_bucketsFullyRefilled_removeOnlyThem() {
+
+        GcraRateLimiter limiter = new GcraRateLimiter(60, 5, 100);
+
+        limiter.tryAcquire("idle", START);
+        limiter.tryAcquire("active", START + INTERVAL);
+        limiter.tryAcquire("active", START + INTERVAL);
+
+        limiter.evictIdle(START + 2 * INTERVAL);
+
+        assertEquals(1, limiter.size());
+        assertEquals(0, limiter.tryAcquire("idle", START + 2 * INTERVAL));
+        assertEquals(2, limiter.size());
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JWTFilterTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_selfContainedToken_authenticateFromClaimsWithoutUserLookup() throws ServletException, IOException {
+
+        JWTUtil jwtUtil = new JWTUtil("secret", true, 60, "default", new MockEnvironment());
+        String token = jwtUtil.generateToken(7, "John Smith", "john.smith@example.com");
+
+        filter(jwtUtil).doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        UserSecurityDetails principal = (UserSecurityDetails) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+
+        assertEquals(7, principal.getId());
+        assertEquals("John Smith", principal.getName());
+        assertEquals("john.smith@example.com", principal.getUsername());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_tokenIssuedBeforeSelfContainedClaims_loadUserFromDatabase() throws ServletException, IOException {
+
+        String token = new JWTUtil("secret", false, 60, "default", new MockEnvironment())
+                .generateToken(7, "John Smith", "john.smith@example.com");
+        JWTUtil jwtUtil = new JWTUtil("secret", true, 60, "default", new MockEnvironment());
+        UserSecurityDetails stored = new UserSecurityDetails(User.builder()
+                .withId(7).withName("John Smith").withEmail("john.smith@example.com").build());
+
+        when(userDetailsService.loadUserByUsername("john.smith@example.com")).thenReturn(stored);
+
+        filter(jwtUtil).doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(stored, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(userDetailsService, times(1)).loadUserByUsername("john.smith@example.com");
+    }
+
+    private JWTFilter filter(JWTUtil jwtUtil) {
+
+        return new JWTFilter(jwtUtil, userDetailsService, new JWTTokenCache(100, new SimpleMeterRegistry()),
+                revocationService);
+    }
+
+    private static MockHttpServletRequest request(String token) {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/post");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        return request;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.security.JWTTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JWTTokenCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private JWTTokenCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenCache = new JWTTokenCache(100, meterRegistry, nanos::get);
+    }
+
+    @Test
+    void get_tokenReachesItsExpiry_evictEntryAtExp() {
+
+        tokenCache.put("token", verifiedToken(Instant.now().plusSeconds(60)));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(55));
+        assertNotNull(tokenCache.get("token"));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertNull(tokenCache.get("token"));
+    }
+
+    @Test
+    void put_alreadyExpiredToken_neverCache() {
+
+        tokenCache.put("token", verifiedToken(Instant.now().minusSeconds(1)));
+
+        assertEquals(0, meterRegistry.get("cache.size").tag("cache", "jwt.tokens").gauge().value());
+        assertNull(tokenCache.get("token"));
+    }
+
+    @Test
+    void put_tokenWithoutExpiry_neverCache() {
+
+        tokenCache.put("token", verifiedToken(null));
+
+        assertEquals(0, meterRegistry.get("cache.size").tag("cache", "jwt.tokens").gauge().value());
+        assertNull(tokenCache.get("token"));
+    }
+
+    private static VerifiedToken verifiedToken(Instant expiresAt) {
+
+        return new VerifiedToken(new UserSecurityDetails(User.builder().withId(1).withEmail("john@example.com").build()),
+                "jti", Instant.now(), expiresAt);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.mikhail.tarasevich.socialmedia.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JWTUtilTest {
+
+    private static final String SECRET = "secret";
+
+    @Test
+    void verifyToken_tokenSignedWithPreviousKey_verifyByItsKeyId() {
+
+        JWTUtil previous = jwtUtil("2024-01", new MockEnvironment().withProperty("jwt.keys.2024-01", "old-secret"));
+        JWTUtil current = jwtUtil("2024-06", new MockEnvironment()
+                .withProperty("jwt.keys.2024-01", "old-secret")
+                .withProperty("jwt.keys.2024-06", "new-secret"));
+
+        DecodedJWT jwt = current.verifyToken(previous.generateToken(1, "John", "john@example.com"));
+
+        assertEquals("2024-01", jwt.getKeyId());
+        assertEquals("john@example.com", jwt.getClaim("email").asString());
+        assertEquals("2024-06", JWT.decode(current.generateToken(1, "John", "john@example.com")).getKeyId());
+    }
+
+    @Test
+    void verifyToken_unknownKeyId_throwJWTVerificationException() {
+
+        JWTUtil other = jwtUtil("retired", new MockEnvironment().withProperty("jwt.keys.retired", "retired-secret"));
+        JWTUtil current = jwtUtil("default", new MockEnvironment());
+
+        String token = other.generateToken(1, "John", "john@example.com");
+
+        assertThrows(JWTVerificationException.class, () -> current.verifyToken(token));
+    }
+
+    @Test
+    void verifyToken_tokenWithoutKeyId_verifyWithLegacyKey() {
+
+        JWTUtil jwtUtil = jwtUtil("2024-06", new MockEnvironment().withProperty("jwt.keys.2024-06", "new-secret"));
+
+        DecodedJWT jwt = jwtUtil.verifyToken(tokenWithoutKeyId(SECRET));
+
+        assertEquals("john@example.com", jwt.getClaim("email").asString());
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.verifyToken(tokenWithoutKeyId("new-secret")));
+    }
+
+    @Test
+    void retrievePrincipal_selfContainedToken_restoreUserFromClaims() {
+
+        JWTUtil jwtUtil = new JWTUtil(SECRET, true, 60, "default", new MockEnvironment());
+
+        DecodedJWT jwt = jwtUtil.verifyToken(jwtUtil.generateToken(7, "John Smith", "john.smith@example.com"));
+        UserSecurityDetails principal = jwtUtil.retrievePrincipal(jwt);
+
+        assertTrue(jwtUtil.isSelfContained(jwt));
+        assertEquals(7, principal.getId());
+        assertEquals("John Smith", principal.getName());
+        assertEquals("john.smith@example.com", principal.getUsername());
+    }
+
+    @Test
+    void isSelfContained_tokenWithoutIdAndNameClaims_returnFalse() {
+
+        JWTUtil jwtUtil = jwtUtil("default", new MockEnvironment());
+
+        assertFalse(jwtUtil.isSelfContained(jwtUtil.verifyToken(tokenWithoutKeyId(SECRET))));
+    }
+
+    private static JWTUtil jwtUtil(String activeKeyId, MockEnvironment environment) {
+
+        return new JWTUtil(SECRET, false, 60, activeKeyId, environment);
+    }
+
+    private static String tokenWithoutKeyId(String secret) {
+
+        return JWT.create()
+                .withSubject("User details")
+                .withClaim("email", "john@example.com")
+                .withIssuedAt(new Date())
+                .withIssuer("social-media-app")
+                .withExpiresAt(Date.from(ZonedDateTime.now().plusMinutes(5).toInstant()))
+                .sign(Algorithm.HMAC256(secret));
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.entity.ImageCodec;
+import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageCacheService;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import com.mikhail.tarasevich.socialmedia.service.storage.ZlibCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageBlobMigrationServiceImplTest {
+
+    @InjectMocks
+    private ImageBlobMigrationServiceImpl migrationService;
+    @Mock
+    private ImageRepository imageRepository;
+    @Mock
+    private ImageCacheService imageCacheService;
+    @Mock
+    private BlobStore blobStore;
+    @Spy
+    private ZlibCodec zlibCodec = new ZlibCodec(1, 2);
+
+    @Test
+    void migrateBatch_imagesStoredInDb_moveDataToBlobStore() {
+
+        byte[] data = {120, -38, 99, 0, 0, 0, 1, 0, 1};
+        Image image = Image.builder().withId(1).withData(data).build();
+
+        when(imageRepository.findIdsOfImagesStoredInDb(10)).thenReturn(List.of(1));
+        when(imageRepository.findAllById(List.of(1))).thenReturn(List.of(image));
+        when(blobStore.put(data)).thenReturn("key");
+
+        assertEquals(1, migrationService.migrateBatch(10));
+
+        InOrder inOrder = inOrder(imageRepository, blobStore);
+        inOrder.verify(imageRepository).unlinkDataOfImages(List.of(1));
+        inOrder.verify(blobStore).put(data);
+        assertEquals("key", image.getBlobKey());
+        assertEquals(ImageCodec.DEFLATE, image.getCodec());
+        assertEquals(1, image.getOriginalSize());
+        assertNull(image.getData());
+        verify(imageCacheService).evict(1);
+    }
+
+    @Test
+    void migrateBatch_nothingToMigrate_returnZero() {
+
+        when(imageRepository.findIdsOfImagesStoredInDb(10)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, migrationService.migrateBatch(10));
+        verify(imageRepository, never()).unlinkDataOfImages(any());
+        verifyNoInteractions(blobStore);
+    }
+
+}
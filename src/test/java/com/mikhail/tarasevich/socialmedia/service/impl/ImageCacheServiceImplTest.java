@@ -0,0 +1,116 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+import com.mikhail.tarasevich.socialmedia.util.ByteBufferResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageCacheServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageCacheServiceImpl imageCacheService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        imageCacheService = new ImageCacheServiceImpl(1024, 16, meterRegistry);
+    }
+
+    @Test
+    void get_repeatedCalls_loadOnceAndServeBytesFromCache() throws IOException {
+
+        AtomicInteger loads = new AtomicInteger();
+        byte[] image = {1, 2, 3, 4};
+
+        for (int i = 0; i < 2; i++) {
+            ImageResponse response = imageCacheService.get(1, id -> {
+                loads.incrementAndGet();
+                return image(image);
+            });
+            Resource resource = response.getContent();
+
+            assertEquals("image/png", response.getType());
+            assertTrue(resource instanceof ByteBufferResource);
+            assertEquals(image.length, resource.contentLength());
+            try (InputStream content = resource.getInputStream()) {
+                assertArrayEquals(image, content.readAllBytes());
+            }
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "images").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "images").tag("result", "miss").functionCounter().count());
+        assertEquals(image.length + "image/png".length(), meterRegistry.get("image.cache.occupancy.bytes").gauge().value());
+        assertEquals(1024, meterRegistry.get("image.cache.budget.bytes").gauge().value());
+    }
+
+    @Test
+    void get_imageLargerThanEntryLimit_returnLoadedResourceWithoutCaching() {
+
+        AtomicInteger loads = new AtomicInteger();
+        ImageResponse image = image(new byte[17]);
+
+        assertSame(image, imageCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return image;
+        }));
+        assertSame(image, imageCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return image;
+        }));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, meterRegistry.get("image.cache.occupancy.bytes").gauge().value());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "images").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void evict_cachedImage_reloadOnNextGet() {
+
+        AtomicInteger loads = new AtomicInteger();
+
+        imageCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return image(new byte[]{1});
+        });
+        imageCacheService.evict(1);
+        imageCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return image(new byte[]{1});
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_concurrentReadersOfCachedImage_eachReadFromStart() throws IOException {
+
+        Resource resource = imageCacheService.get(1, id -> image(new byte[]{1, 2, 3})).getContent();
+
+        try (InputStream first = resource.getInputStream(); InputStream second = resource.getInputStream()) {
+            assertEquals(1, first.read());
+            assertEquals(1, second.read());
+            assertEquals(2, first.read());
+        }
+    }
+
+    private static ImageResponse image(byte[] content) {
+        return ImageResponse.builder()
+                .withContent(new ByteArrayResource(content))
+                .withType("image/png")
+                .build();
+    }
+
+}
@@ -1,30 +1,61 @@
 package com.mikhail.tarasevich.socialmedia.service.impl;
 
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.entity.ImageCodec;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
 import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
 import com.mikhail.tarasevich.socialmedia.repository.PostRepository;
-import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageCacheService;
+import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.PostCacheService;
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageTooLargeException;
 import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
-import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import com.mikhail.tarasevich.socialmedia.service.storage.ZlibCodec;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntFunction;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -32,25 +63,42 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class ImageServiceImplTest {
 
-    @InjectMocks
+    private static final String BLOB_KEY = "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d";
+    private static final long MAX_IMAGE_SIZE = 8192;
+
     private ImageServiceImpl imageService;
     @Mock
     private ImageRepository imageRepository;
     @Mock
     private PostRepository postRepository;
     @Mock
-    private UserRepository userRepository;
+    private PostCacheService postCacheService;
+    @Mock
+    private ImageCacheService imageCacheService;
+    @Mock
+    private BlobStore blobStore;
+    @Spy
+    private ZlibCodec zlibCodec = new ZlibCodec(1, 2);
+
+    @BeforeEach
+    void setUp() {
+        imageService = new ImageServiceImpl(imageRepository, postRepository, postCacheService, imageCacheService,
+                blobStore, zlibCodec, MAX_IMAGE_SIZE);
+
+        lenient().when(imageCacheService.get(anyInt(), any())).thenAnswer(invocation ->
+                invocation.<IntFunction<ImageResponse>>getArgument(1).apply(invocation.getArgument(0)));
+    }
 
     @Test
     void uploadImage_validData_saveImageAndReturnImageId() throws IOException {
 
         int postId = 1;
-        String userEmail = "test@example.com";
+        int userId = 1;
         MultipartFile file = createMockMultipartFile();
 
         User user = User.builder()
-                .withId(1)
-                .withEmail(userEmail)
+                .withId(userId)
+                .withEmail("test@example.com")
                 .build();
 
         Post post = Post.builder()
@@ -58,8 +106,8 @@ class ImageServiceImplTest {
                 .withUser(user)
                 .build();
 
-        byte[] imageData = {0};
-        byte[] imageDataForSave = {120, -38, 99, 0, 0, 0, 1, 0, 1};
+        byte[] imageData = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16};
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
 
         Image image = Image.builder()
                 .withId(1)
@@ -73,92 +121,216 @@ class ImageServiceImplTest {
                 .withName(file.getOriginalFilename())
                 .withPost(post)
                 .withType(file.getContentType())
-                .withData(imageDataForSave)
+                .withBlobKey(BLOB_KEY)
+                .withCodec(ImageCodec.IDENTITY)
+                .withOriginalSize(imageData.length)
                 .build();
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(userRepository.findUserByEmail(userEmail)).thenReturn(Optional.of(user));
         when(file.getOriginalFilename()).thenReturn("test.jpg");
         when(file.getContentType()).thenReturn("image/jpeg");
-        when(file.getBytes()).thenReturn(imageData);
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(imageData));
+        when(blobStore.put(any(InputStream.class))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).transferTo(stored);
+            return BLOB_KEY;
+        });
         when(imageRepository.save(imageForSave)).thenReturn(image);
 
-        imageService.uploadImage(file, postId, userEmail);
+        imageService.uploadImage(file, postId, userId);
 
+        assertArrayEquals(imageData, stored.toByteArray());
         verify(postRepository, times(1)).findById(postId);
-        verify(userRepository, times(1)).findUserByEmail(userEmail);
+        verify(blobStore, times(1)).put(any(InputStream.class));
         verify(imageRepository, times(1)).save(imageForSave);
-        verifyNoMoreInteractions(postRepository, userRepository, imageRepository);
+        verify(postCacheService, times(1)).evict(postId);
+        verifyNoMoreInteractions(postRepository, imageRepository);
     }
 
     @Test
-    void uploadImage_postNotExist_Exception() {
+    void uploadImage_compressibleImage_storeDeflatedData() throws IOException {
 
         int postId = 1;
-        String userEmail = "test@example.com";
-        MultipartFile file = null;
+        int userId = 1;
+        MultipartFile file = createMockMultipartFile();
+        Post post = Post.builder().withId(postId).withUser(User.builder().withId(userId).build()).build();
 
-        when(postRepository.findById(postId)).thenReturn(Optional.empty());
+        byte[] imageData = new byte[4096];
+        imageData[0] = 'B';
+        imageData[1] = 'M';
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
 
-        assertThrows(IncorrectRequestDataException.class, () -> imageService.uploadImage(file, postId, userEmail));
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(file.getContentType()).thenReturn("image/bmp");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(imageData));
+        when(blobStore.put(any(InputStream.class))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).transferTo(stored);
+            return BLOB_KEY;
+        });
+
+        imageService.uploadImage(file, postId, userId);
+
+        ArgumentCaptor<Image> saved = ArgumentCaptor.forClass(Image.class);
+        verify(imageRepository, times(1)).save(saved.capture());
+        assertEquals(ImageCodec.DEFLATE, saved.getValue().getCodec());
+        assertEquals(imageData.length, saved.getValue().getOriginalSize());
+        assertTrue(stored.size() < imageData.length);
+        assertArrayEquals(imageData, zlibCodec.decompress(stored.toByteArray(), imageData.length));
+    }
 
-        verify(postRepository, times(1)).findById(postId);
-        verifyNoMoreInteractions(postRepository, userRepository, imageRepository);
+    @Test
+    void uploadImage_unknownFormatWithIncompressibleType_storeRawData() throws IOException {
+
+        int postId = 1;
+        int userId = 1;
+        MultipartFile file = createMockMultipartFile();
+        Post post = Post.builder().withId(postId).withUser(User.builder().withId(userId).build()).build();
+
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(file.getContentType()).thenReturn("image/webp");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(blobStore.put(any(InputStream.class))).thenReturn(BLOB_KEY);
+
+        imageService.uploadImage(file, postId, userId);
+
+        ArgumentCaptor<Image> saved = ArgumentCaptor.forClass(Image.class);
+        verify(imageRepository, times(1)).save(saved.capture());
+        assertEquals(ImageCodec.IDENTITY, saved.getValue().getCodec());
+    }
+
+    @Test
+    void uploadImage_declaredSizeExceedsLimit_ExceptionWithoutReadingFile() throws IOException {
+
+        int postId = 1;
+        int userId = 1;
+        MultipartFile file = Mockito.mock(MultipartFile.class);
+        Post post = Post.builder().withId(postId).withUser(User.builder().withId(userId).build()).build();
+
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(file.getSize()).thenReturn(MAX_IMAGE_SIZE + 1);
+
+        assertThrows(ImageTooLargeException.class, () -> imageService.uploadImage(file, postId, userId));
+
+        verify(file, never()).getInputStream();
+        verifyNoMoreInteractions(blobStore, imageRepository);
     }
 
     @Test
-    void uploadImage_UserNotExist_Exception() {
+    void uploadImage_streamedContentExceedsLimit_ExceptionAndNothingSaved() throws IOException {
 
         int postId = 1;
-        String userEmail = "test@example.com";
+        int userId = 1;
+        MultipartFile file = Mockito.mock(MultipartFile.class);
+        Post post = Post.builder().withId(postId).withUser(User.builder().withId(userId).build()).build();
+
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(file.getContentType()).thenReturn("image/png");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[(int) MAX_IMAGE_SIZE * 2]));
+        when(blobStore.put(any(InputStream.class))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).transferTo(OutputStream.nullOutputStream());
+            return BLOB_KEY;
+        });
+
+        assertThrows(ImageTooLargeException.class, () -> imageService.uploadImage(file, postId, userId));
+
+        verify(imageRepository, never()).save(any(Image.class));
+        verify(postCacheService, never()).evict(postId);
+    }
+
+    @Test
+    void uploadImage_postNotExist_Exception() {
+
+        int postId = 1;
+        int userId = 1;
         MultipartFile file = null;
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(Post.builder().build()));
-        when(userRepository.findUserByEmail(userEmail)).thenReturn(Optional.empty());
+        when(postRepository.findById(postId)).thenReturn(Optional.empty());
 
-        assertThrows(UserNotFoundException.class, () -> imageService.uploadImage(file, postId, userEmail));
+        assertThrows(IncorrectRequestDataException.class, () -> imageService.uploadImage(file, postId, userId));
 
         verify(postRepository, times(1)).findById(postId);
-        verify(userRepository, times(1)).findUserByEmail(userEmail);
-        verifyNoMoreInteractions(postRepository, userRepository, imageRepository);
+        verifyNoMoreInteractions(postRepository, imageRepository);
     }
 
     @Test
     void uploadImage_postNorRelateToUser_Exception() {
 
         int postId = 1;
-        String userEmail = "test@example.com";
+        int userId = 1;
         MultipartFile file = null;
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(Post.builder().withUser(User.builder().withId(2).build()).build()));
-        when(userRepository.findUserByEmail(userEmail)).thenReturn(Optional.of(User.builder().withId(1).build()));
 
-        assertThrows(PostNotValidDataException.class, () -> imageService.uploadImage(file, postId, userEmail));
+        assertThrows(PostNotValidDataException.class, () -> imageService.uploadImage(file, postId, userId));
 
         verify(postRepository, times(1)).findById(postId);
-        verify(userRepository, times(1)).findUserByEmail(userEmail);
-        verifyNoMoreInteractions(postRepository, userRepository, imageRepository);
+        verifyNoMoreInteractions(postRepository, imageRepository);
     }
 
     @Test
     void downloadImage_existingImageId_returnImageData() {
 
         int imageId = 1;
-        byte[] imageData = {8, 7, 0, 0, 0};
+        byte[] imageData = {120, -38, 99, 0, 0, 0, 1, 0, 1};
 
         Image image = Image.builder()
                 .withId(imageId)
+                .withType("image/gif")
                 .withData(imageData)
                 .build();
 
         when(imageRepository.findById(imageId)).thenReturn(Optional.of(image));
 
-        imageService.downloadImage(imageId);
+        ImageResponse response = imageService.downloadImage(imageId);
+
+        assertTrue(response.getContent() instanceof ByteArrayResource);
+        assertEquals("image/gif", response.getType());
 
         verify(imageRepository, times(1)).findById(imageId);
         verifyNoMoreInteractions(imageRepository);
     }
 
+    @Test
+    void downloadImage_compressedImageInBlobStore_inflateImageData() {
+
+        int imageId = 1;
+        byte[] compressedData = {120, -38, 99, 0, 0, 0, 1, 0, 1};
+
+        Image image = Image.builder()
+                .withId(imageId)
+                .withBlobKey(BLOB_KEY)
+                .withCodec(ImageCodec.DEFLATE)
+                .withOriginalSize(1)
+                .build();
+
+        when(imageRepository.findById(imageId)).thenReturn(Optional.of(image));
+        when(blobStore.get(BLOB_KEY)).thenReturn(compressedData);
+
+        assertArrayEquals(new byte[]{0}, ((ByteArrayResource) imageService.downloadImage(imageId).getContent()).getByteArray());
+
+        verify(blobStore, times(1)).get(BLOB_KEY);
+    }
+
+    @Test
+    void downloadImage_uncompressedImageInBlobStore_returnBlobResourceWithoutReadingIt() {
+
+        int imageId = 1;
+        Resource blob = new ByteArrayResource(new byte[]{1, 2, 3});
+
+        Image image = Image.builder()
+                .withId(imageId)
+                .withBlobKey(BLOB_KEY)
+                .withCodec(ImageCodec.IDENTITY)
+                .build();
+
+        when(imageRepository.findById(imageId)).thenReturn(Optional.of(image));
+        when(blobStore.resource(BLOB_KEY)).thenReturn(blob);
+
+        assertSame(blob, imageService.downloadImage(imageId).getContent());
+
+        verify(blobStore, times(1)).resource(BLOB_KEY);
+        verifyNoMoreInteractions(blobStore);
+    }
+
     @Test
     void downloadImage_nonExistingImageId_returnImageData() {
 
@@ -172,6 +344,49 @@ class ImageServiceImplTest {
         verifyNoMoreInteractions(imageRepository);
     }
 
+    @Test
+    void readImage_existingImageId_loadWithoutTouchingImageCache() {
+
+        Image image = Image.builder().withId(1).withType("image/png").withBlobKey("key")
+                .withCodec(ImageCodec.IDENTITY).build();
+        Resource blob = new ByteArrayResource(new byte[]{1, 2});
+
+        when(imageRepository.findById(1)).thenReturn(Optional.of(image));
+        when(blobStore.resource("key")).thenReturn(blob);
+
+        assertSame(blob, imageService.readImage(1).getContent());
+        verifyNoInteractions(imageCacheService);
+    }
+
+    @Test
+    void downloadImage_cachedImage_returnCachedImageWithoutLoading() {
+
+        ImageResponse cached = ImageResponse.builder().withContent(new ByteArrayResource(new byte[]{1, 2, 3})).build();
+
+        doReturn(cached).when(imageCacheService).get(anyInt(), any());
+
+        assertSame(cached, imageService.downloadImage(1));
+
+        verifyNoInteractions(imageRepository, blobStore);
+    }
+
+    @Test
+    void downloadImage_cacheHitThroughTransactionalProxy_neverBorrowConnection() throws SQLException {
+
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        ProxyFactory proxyFactory = new ProxyFactory(imageService);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) new DataSourceTransactionManager(dataSource),
+                new AnnotationTransactionAttributeSource()));
+        ImageService proxy = (ImageService) proxyFactory.getProxy();
+
+        doReturn(ImageResponse.builder().build()).when(imageCacheService).get(anyInt(), any());
+
+        proxy.downloadImage(1);
+
+        verify(dataSource, never()).getConnection();
+        verifyNoInteractions(imageRepository);
+    }
+
     @Test
     void findImagesIdRelateToPost_existingPostId_returnImageIds() {
 
@@ -0,0 +1,255 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.ImageResponse;
+import com.mikhail.tarasevich.socialmedia.entity.Image;
+import com.mikhail.tarasevich.socialmedia.entity.ImageVariant;
+import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.repository.ImageVariantRepository;
+import com.mikhail.tarasevich.socialmedia.service.ImageService;
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
+import com.mikhail.tarasevich.socialmedia.service.storage.BlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantServiceImplTest {
+
+    private static final String BLOB_KEY = "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d";
+
+    private ImageVariantServiceImpl imageVariantService;
+    @Mock
+    private ImageService imageService;
+    @Mock
+    private ImageRepository imageRepository;
+    @Mock
+    private ImageVariantRepository imageVariantRepository;
+    @Mock
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        imageVariantService = new ImageVariantServiceImpl(imageService, imageRepository, imageVariantRepository,
+                blobStore, new int[]{640, 160, 320}, 1_000_000, 1, 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantService.destroy();
+    }
+
+    @Test
+    void generateVariants_wideImage_storeMissingWidthsScaledProportionally() throws IOException {
+
+        int imageId = 1;
+        List<byte[]> stored = new ArrayList<>();
+
+        when(imageVariantRepository.findWidthsByImageId(imageId)).thenReturn(List.of(160));
+        when(imageService.readImage(imageId)).thenReturn(image(png(1000, 500)));
+        when(imageRepository.getReferenceById(imageId)).thenReturn(Image.builder().withId(imageId).build());
+        when(blobStore.put(any(byte[].class))).thenAnswer(invocation -> {
+            stored.add(invocation.getArgument(0));
+            return BLOB_KEY;
+        });
+
+        imageVariantService.generateVariants(imageId);
+
+        ArgumentCaptor<ImageVariant> saved = ArgumentCaptor.forClass(ImageVariant.class);
+        verify(imageVariantRepository, times(2)).save(saved.capture());
+        assertEquals(320, saved.getAllValues().get(0).getWidth());
+        assertEquals(640, saved.getAllValues().get(1).getWidth());
+        assertEquals(BLOB_KEY, saved.getAllValues().get(1).getBlobKey());
+        assertEquals("image/jpeg", saved.getAllValues().get(1).getType());
+
+        BufferedImage variant = ImageIO.read(new ByteArrayInputStream(stored.get(0)));
+        assertEquals(320, variant.getWidth());
+        assertEquals(160, variant.getHeight());
+    }
+
+    @Test
+    void generateVariants_narrowImage_storeVariantsWithoutBlob() throws IOException {
+
+        int imageId = 1;
+
+        when(imageVariantRepository.findWidthsByImageId(imageId)).thenReturn(List.of());
+        when(imageService.readImage(imageId)).thenReturn(image(png(100, 100)));
+        when(imageRepository.getReferenceById(imageId)).thenReturn(Image.builder().withId(imageId).build());
+
+        imageVariantService.generateVariants(imageId);
+
+        ArgumentCaptor<ImageVariant> saved = ArgumentCaptor.forClass(ImageVariant.class);
+        verify(imageVariantRepository, times(3)).save(saved.capture());
+        saved.getAllValues().forEach(variant -> assertNull(variant.getBlobKey()));
+        verify(blobStore, never()).put(any(byte[].class));
+    }
+
+    @Test
+    void generateVariants_imageAbovePixelLimit_storeVariantsWithoutDecoding() throws IOException {
+
+        int imageId = 1;
+
+        when(imageVariantRepository.findWidthsByImageId(imageId)).thenReturn(List.of());
+        when(imageService.readImage(imageId)).thenReturn(image(png(2000, 1000)));
+        when(imageRepository.getReferenceById(imageId)).thenReturn(Image.builder().withId(imageId).build());
+
+        imageVariantService.generateVariants(imageId);
+
+        ArgumentCaptor<ImageVariant> saved = ArgumentCaptor.forClass(ImageVariant.class);
+        verify(imageVariantRepository, times(3)).save(saved.capture());
+        saved.getAllValues().forEach(variant -> assertNull(variant.getBlobKey()));
+        verify(blobStore, never()).put(any(byte[].class));
+    }
+
+    @Test
+    void generateVariants_corruptImage_storeVariantsWithoutBlobSoDecodeIsNotRetried() throws IOException {
+
+        int imageId = 1;
+        byte[] corrupt = Arrays.copyOf(png(400, 400), 60);
+
+        when(imageVariantRepository.findWidthsByImageId(imageId)).thenReturn(List.of());
+        when(imageService.readImage(imageId)).thenReturn(image(corrupt));
+        when(imageRepository.getReferenceById(imageId)).thenReturn(Image.builder().withId(imageId).build());
+
+        imageVariantService.generateVariants(imageId);
+
+        ArgumentCaptor<ImageVariant> saved = ArgumentCaptor.forClass(ImageVariant.class);
+        verify(imageVariantRepository, times(3)).save(saved.capture());
+        saved.getAllValues().forEach(variant -> assertNull(variant.getBlobKey()));
+    }
+
+    @Test
+    void generateVariants_unsupportedFormat_storeVariantsWithoutBlob() {
+
+        int imageId = 1;
+
+        when(imageVariantRepository.findWidthsByImageId(imageId)).thenReturn(List.of());
+        when(imageService.readImage(imageId)).thenReturn(image(new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0}));
+        when(imageRepository.getReferenceById(imageId)).thenReturn(Image.builder().withId(imageId).build());
+
+        imageVariantService.generateVariants(imageId);
+
+        verify(imageVariantRepository, times(3)).save(any(ImageVariant.class));
+        verify(blobStore, never()).put(any(byte[].class));
+    }
+
+    @Test
+    void generateVariants_allVariantsExist_doNothing() {
+
+        when(imageVariantRepository.findWidthsByImageId(1)).thenReturn(List.of(160, 320, 640));
+
+        imageVariantService.generateVariants(1);
+
+        verify(imageVariantRepository, never()).save(any(ImageVariant.class));
+        verify(imageService, never()).readImage(1);
+    }
+
+    @Test
+    void downloadImageVariant_readyVariant_returnVariantBlob() {
+
+        Resource resource = new FileSystemResource(Path.of("blob"));
+
+        when(imageVariantRepository.findByImageIdAndWidth(1, 320))
+                .thenReturn(Optional.of(ImageVariant.builder().withWidth(320).withBlobKey(BLOB_KEY).withType("image/jpeg").build()));
+        when(blobStore.resource(BLOB_KEY)).thenReturn(resource);
+
+        ImageResponse variant = imageVariantService.downloadImageVariant(1, 200).orElseThrow();
+
+        assertSame(resource, variant.getContent());
+        assertEquals("image/jpeg", variant.getType());
+    }
+
+    @Test
+    void downloadImageVariant_variantWithoutBlob_returnOriginal() {
+
+        ImageResponse original = image(new byte[]{1});
+
+        when(imageVariantRepository.findByImageIdAndWidth(1, 160))
+                .thenReturn(Optional.of(ImageVariant.builder().withWidth(160).build()));
+        when(imageService.downloadImage(1)).thenReturn(original);
+
+        assertSame(original, imageVariantService.downloadImageVariant(1, 160).orElseThrow());
+    }
+
+    @Test
+    void downloadImageVariant_widthAboveLargestVariant_returnOriginal() {
+
+        ImageResponse original = image(new byte[]{1});
+
+        when(imageService.downloadImage(1)).thenReturn(original);
+
+        assertSame(original, imageVariantService.downloadImageVariant(1, 2000).orElseThrow());
+        verify(imageVariantRepository, never()).findByImageIdAndWidth(1, 2000);
+    }
+
+    @Test
+    void downloadImageVariant_missingVariant_returnEmptyAndScheduleGeneration() {
+
+        when(imageVariantRepository.findByImageIdAndWidth(1, 640)).thenReturn(Optional.empty());
+        when(imageRepository.existsById(1)).thenReturn(true);
+
+        assertTrue(imageVariantService.downloadImageVariant(1, 640).isEmpty());
+        verify(imageVariantRepository, timeout(1000)).findWidthsByImageId(1);
+    }
+
+    @Test
+    void downloadImageVariant_imageNotExist_Exception() {
+
+        when(imageVariantRepository.findByImageIdAndWidth(1, 640)).thenReturn(Optional.empty());
+        when(imageRepository.existsById(1)).thenReturn(false);
+
+        assertThrows(IncorrectRequestDataException.class, () -> imageVariantService.downloadImageVariant(1, 640));
+    }
+
+    @Test
+    void downloadImageVariant_nonPositiveWidth_Exception() {
+
+        assertThrows(IncorrectRequestDataException.class, () -> imageVariantService.downloadImageVariant(1, 0));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+
+        return out.toByteArray();
+    }
+
+    private static ImageResponse image(byte[] content) {
+        return ImageResponse.builder()
+                .withContent(new ByteArrayResource(content))
+                .withType("image/png")
+                .build();
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+import com.mikhail.tarasevich.socialmedia.service.exception.PostNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostCacheServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PostCacheServiceImpl postCacheService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        postCacheService = new PostCacheServiceImpl(1_000_000, 60, meterRegistry);
+    }
+
+    @Test
+    void get_repeatedCalls_loadOnceAndRecordHitsAndMisses() {
+
+        AtomicInteger loads = new AtomicInteger();
+        PostResponse post = PostResponse.builder().withId(1).withHeader("Post").build();
+
+        assertEquals(post, postCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return post;
+        }));
+        assertEquals(post, postCacheService.get(1, id -> {
+            loads.incrementAndGet();
+            return post;
+        }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "posts").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "posts").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void get_concurrentCallsForSamePost_loadOnce() throws Exception {
+
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<PostResponse>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return postCacheService.get(1, id -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return PostResponse.builder().withId(id).build();
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<PostResponse> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_loaderThrowsException_propagateAndCacheNothing() {
+
+        assertThrows(PostNotFoundException.class, () -> postCacheService.get(1, id -> {
+            throw new PostNotFoundException("Post with id = " + id + " does not exist");
+        }));
+
+        PostResponse post = PostResponse.builder().withId(1).build();
+
+        assertEquals(post, postCacheService.get(1, id -> post));
+    }
+
+    @Test
+    void get_callerModifiesReturnedPost_cachedPostStaysUnchanged() {
+
+        PostResponse post = PostResponse.builder().withId(1).withHeader("Post").withImages(List.of(1, 2)).build();
+
+        PostResponse first = postCacheService.get(1, id -> post);
+        first.setHeader("Changed");
+        first.getImages().add(3);
+
+        PostResponse second = postCacheService.get(1, id -> post);
+
+        assertNotSame(first, second);
+        assertEquals("Post", second.getHeader());
+        assertEquals(List.of(1, 2), second.getImages());
+    }
+
+    @Test
+    void evict_cachedPost_reloadOnNextGet() {
+
+        AtomicInteger loads = new AtomicInteger();
+
+        postCacheService.get(1, id -> PostResponse.builder().withId(loads.incrementAndGet()).build());
+        postCacheService.evict(1);
+        PostResponse reloaded = postCacheService.get(1, id -> PostResponse.builder().withId(loads.incrementAndGet()).build());
+
+        assertEquals(2, reloaded.getId());
+    }
+
+    private static void sleep() {
+
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
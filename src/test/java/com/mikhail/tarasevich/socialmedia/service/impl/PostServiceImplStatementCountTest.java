@@ -0,0 +1,177 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.config.SpringTestConfig;
+import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
+import com.mikhail.tarasevich.socialmedia.service.PostService;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = SpringTestConfig.class)
+@Transactional
+class PostServiceImplStatementCountTest {
+
+    private static final int USER_ID = 5;
+    private static final int POSTS_COUNT = 50;
+
+    @Autowired
+    private PostService postService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+
+        LocalDateTime createdAt = LocalDateTime.of(2023, 6, 1, 12, 0);
+
+        for (int i = 0; i < POSTS_COUNT; i++) {
+            update("INSERT INTO posts (user_id, header, content, created_at) VALUES (?, ?, ?, ?)",
+                    USER_ID, "Post " + i, "Content " + i, Timestamp.valueOf(createdAt.plusMinutes(i)));
+            update("INSERT INTO images (post_id, name, type) " +
+                    "SELECT MAX(id), 'image.png', 'image/png' FROM posts");
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllPostsRelateToUser_pageOfFiftyPosts_issueSameStatementCountAsPageOfOne() {
+
+        List<PostResponse> single = postService.findAllPostsRelateToUser(USER_ID, 1, null);
+        long singleCount = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+
+        List<PostResponse> page = postService.findAllPostsRelateToUser(USER_ID, POSTS_COUNT, null);
+
+        assertEquals(1, single.size());
+        assertEquals(POSTS_COUNT, page.size());
+        page.forEach(post -> assertEquals(1, post.getImages().size()));
+        assertEquals(2, singleCount);
+        assertEquals(singleCount, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPostsRelateToUser_nextPageOfFiftyPostsByCursor_issueTwoStatements() {
+
+        PostResponse first = postService.findAllPostsRelateToUser(USER_ID, 1, null).get(0);
+
+        statistics.clear();
+
+        List<PostResponse> page = postService.findAllPostsRelateToUser(USER_ID, POSTS_COUNT,
+                new KeysetCursor(first.getCreatedAt(), first.getId()));
+
+        assertEquals(POSTS_COUNT, page.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findLastPostOfSubscriptions_pageOfFiftyPosts_issueSameStatementCountAsPageOfOne() {
+
+        int readerId = subscribeToAuthorsWithOnePostEach(POSTS_COUNT);
+
+        postService.findLastPostOfSubscriptions(readerId, 1, 1);
+        statistics.clear();
+
+        List<PostResponse> single = postService.findLastPostOfSubscriptions(readerId, 1, 1);
+        long singleCount = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+
+        List<PostResponse> page = postService.findLastPostOfSubscriptions(readerId, POSTS_COUNT, 1);
+
+        assertEquals(1, single.size());
+        assertEquals(POSTS_COUNT, page.size());
+        page.forEach(post -> assertEquals(1, post.getImages().size()));
+        assertEquals(2, singleCount);
+        assertEquals(singleCount, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findLastPostOfSubscriptions_pageOfFiftyPostsByCursor_issueTwoStatements() {
+
+        int readerId = subscribeToAuthorsWithOnePostEach(POSTS_COUNT);
+
+        statistics.clear();
+
+        List<PostResponse> page = postService.findLastPostOfSubscriptions(readerId, POSTS_COUNT,
+                new KeysetCursor(LocalDateTime.of(2100, 1, 1, 0, 0), Integer.MAX_VALUE));
+
+        assertEquals(POSTS_COUNT, page.size());
+        page.forEach(post -> assertEquals(1, post.getImages().size()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private int subscribeToAuthorsWithOnePostEach(int authors) {
+
+        update("INSERT INTO users (name, email, password) VALUES ('Reader', 'reader@example.com', 'password')");
+        int readerId = queryForId("SELECT id FROM users WHERE email = 'reader@example.com'");
+
+        LocalDateTime createdAt = LocalDateTime.of(2023, 7, 1, 12, 0);
+
+        for (int i = 0; i < authors; i++) {
+            String email = "author" + i + "@example.com";
+            Timestamp postedAt = Timestamp.valueOf(createdAt.plusMinutes(i));
+
+            update("INSERT INTO users (name, email, password) VALUES (?, ?, 'password')", "Author " + i, email);
+            int authorId = queryForId("SELECT id FROM users WHERE email = ?", email);
+
+            update("INSERT INTO subscribers (user_id, sub_user_id, is_accepted) VALUES (?, ?, 'ACCEPTED')",
+                    readerId, authorId);
+            update("INSERT INTO posts (user_id, header, content, created_at) VALUES (?, ?, ?, ?)",
+                    authorId, "Post of author " + i, "Content", postedAt);
+            int postId = queryForId("SELECT MAX(id) FROM posts");
+
+            update("INSERT INTO latest_posts (user_id, post_id, created_at) VALUES (?, ?, ?)",
+                    authorId, postId, postedAt);
+            update("INSERT INTO images (post_id, name, type) VALUES (?, 'image.png', 'image/png')", postId);
+        }
+
+        return readerId;
+    }
+
+    // Goes through the test transaction, so the fixture rows are rolled back after each test
+    private void update(String sql, Object... params) {
+
+        query(sql, params).executeUpdate();
+    }
+
+    private int queryForId(String sql, Object... params) {
+
+        return ((Number) query(sql, params).getSingleResult()).intValue();
+    }
+
+    private Query query(String sql, Object... params) {
+
+        Query query = entityManager.createNativeQuery(sql);
+
+        for (int i = 0; i < params.length; i++) {
+            query.setParameter(i + 1, params[i]);
+        }
+
+        return query;
+    }
+
+}
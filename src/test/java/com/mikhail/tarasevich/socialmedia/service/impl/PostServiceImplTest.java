@@ -2,30 +2,55 @@ package com.mikhail.tarasevich.socialmedia.service.impl;
 
 import com.mikhail.tarasevich.socialmedia.dto.PostRequest;
 import com.mikhail.tarasevich.socialmedia.dto.PostResponse;
-import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
 import com.mikhail.tarasevich.socialmedia.entity.Post;
 import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.ImageRepository;
+import com.mikhail.tarasevich.socialmedia.repository.LatestPostRepository;
 import com.mikhail.tarasevich.socialmedia.repository.PostRepository;
-import com.mikhail.tarasevich.socialmedia.service.UserService;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostImageIdView;
+import com.mikhail.tarasevich.socialmedia.repository.projection.PostView;
+import com.mikhail.tarasevich.socialmedia.service.PostCacheService;
+import com.mikhail.tarasevich.socialmedia.service.PostService;
+import com.mikhail.tarasevich.socialmedia.service.TimelineService;
+import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotFoundException;
 import com.mikhail.tarasevich.socialmedia.service.exception.PostNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.service.mapper.PostMapper;
+import com.mikhail.tarasevich.socialmedia.util.KeysetCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -40,21 +65,21 @@ public class PostServiceImplTest {
     @Mock
     private PostRepository postRepository;
     @Mock
-    private UserService userService;
-    @Mock
     private ImageRepository imageRepository;
     @Mock
+    private LatestPostRepository latestPostRepository;
+    @Mock
+    private TimelineService timelineService;
+    @Spy
+    private PostCacheService postCacheService = new PostCacheServiceImpl(1_000_000, 60, new SimpleMeterRegistry());
+    @Mock
     private PostMapper mapper;
 
     @Test
     void findPostById_existingPostId_returnPostResponseWithImages() {
 
         int postId = 1;
-        Post post = Post.builder()
-                .withId(postId)
-                .withHeader("Test Post")
-                .withContent("This is a test post")
-                .build();
+        PostView post = postView(postId, 1, "Test Post", "This is a test post");
 
         List<Integer> imageIds = List.of(1, 2, 3);
 
@@ -65,7 +90,7 @@ public class PostServiceImplTest {
                 .withImages(imageIds)
                 .build();
 
-        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(postRepository.findPostViewById(postId)).thenReturn(Optional.of(post));
         when(imageRepository.findImagesIdRelateToPost(postId)).thenReturn(imageIds);
         when(mapper.toResponse(post)).thenReturn(expectedResponse);
 
@@ -73,21 +98,63 @@ public class PostServiceImplTest {
 
         assertNotNull(result);
         assertEquals(expectedResponse, result);
-        verify(postRepository, times(1)).findById(postId);
+        verify(postRepository, times(1)).findPostViewById(postId);
         verify(imageRepository, times(1)).findImagesIdRelateToPost(postId);
         verify(mapper, times(1)).toResponse(post);
     }
 
+    @Test
+    void findPostById_repeatedCalls_loadPostOnlyOnce() {
+
+        int postId = 1;
+        PostView post = postView(postId, 1, "Test Post", null);
+        PostResponse response = PostResponse.builder().withId(postId).withHeader("Test Post").build();
+
+        when(postRepository.findPostViewById(postId)).thenReturn(Optional.of(post));
+        when(imageRepository.findImagesIdRelateToPost(postId)).thenReturn(List.of(1));
+        when(mapper.toResponse(post)).thenReturn(response);
+
+        assertEquals(response, postService.findPostById(postId));
+        assertEquals(response, postService.findPostById(postId));
+
+        verify(postRepository, times(1)).findPostViewById(postId);
+        verify(imageRepository, times(1)).findImagesIdRelateToPost(postId);
+    }
+
+    @Test
+    void findPostById_cacheHitThroughTransactionalProxy_neverBorrowConnection() throws SQLException {
+
+        int postId = 1;
+        PostView post = postView(postId, 1, "Test Post", null);
+
+        when(postRepository.findPostViewById(postId)).thenReturn(Optional.of(post));
+        when(imageRepository.findImagesIdRelateToPost(postId)).thenReturn(List.of(1));
+        when(mapper.toResponse(post)).thenReturn(PostResponse.builder().withId(postId).build());
+
+        postService.findPostById(postId);
+
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        ProxyFactory proxyFactory = new ProxyFactory(postService);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) new DataSourceTransactionManager(dataSource),
+                new AnnotationTransactionAttributeSource()));
+        PostService proxy = (PostService) proxyFactory.getProxy();
+
+        assertEquals(postId, proxy.findPostById(postId).getId());
+
+        verify(dataSource, never()).getConnection();
+        verify(postRepository, times(1)).findPostViewById(postId);
+    }
+
     @Test
     void findPostById_nonExistingPostId_throwPostNotFoundException() {
 
         int nonExistingPostId = 100;
 
-        when(postRepository.findById(nonExistingPostId)).thenReturn(Optional.empty());
+        when(postRepository.findPostViewById(nonExistingPostId)).thenReturn(Optional.empty());
 
         assertThrows(PostNotFoundException.class, () -> postService.findPostById(nonExistingPostId));
 
-        verify(postRepository, times(1)).findById(nonExistingPostId);
+        verify(postRepository, times(1)).findPostViewById(nonExistingPostId);
         verifyNoInteractions(imageRepository);
         verifyNoInteractions(mapper);
     }
@@ -96,19 +163,12 @@ public class PostServiceImplTest {
     void createPost_validRequestAndExistingUser_returnPostResponse() {
 
         int userId = 1;
-        String email = "test@example.com";
 
         PostRequest request = PostRequest.builder()
                 .withHeader("Test Post")
                 .withContent("This is a test post")
                 .build();
 
-        UserResponse userResponse = UserResponse.builder()
-                .withId(userId)
-                .withName("Test User")
-                .withEmail(email)
-                .build();
-
         Post post = Post.builder()
                 .withId(1)
                 .withHeader("Test Post")
@@ -122,18 +182,18 @@ public class PostServiceImplTest {
                 .withContent("This is a test post")
                 .build();
 
-        when(userService.findUserByEmail(email)).thenReturn(userResponse);
         when(mapper.toEntity(request)).thenReturn(post);
         when(postRepository.save(post)).thenReturn(post);
         when(mapper.toResponse(post)).thenReturn(expectedResponse);
 
-        PostResponse result = postService.createPost(request, email);
+        PostResponse result = postService.createPost(request, userId);
 
         assertNotNull(result);
         assertEquals(expectedResponse, result);
-        verify(userService, times(1)).findUserByEmail(email);
         verify(mapper, times(1)).toEntity(request);
         verify(postRepository, times(1)).save(post);
+        verify(latestPostRepository, times(1)).upsertLatestPost(userId, post.getId(), post.getCreatedAt());
+        verify(timelineService, times(1)).onPostPublished(userId, post.getId());
         verify(mapper, times(1)).toResponse(post);
     }
 
@@ -142,19 +202,12 @@ public class PostServiceImplTest {
 
         int postId = 1;
         int userId = 1;
-        String email = "test@example.com";
         PostRequest request = PostRequest.builder()
                 .withId(postId)
                 .withHeader("Updated Post")
                 .withContent("This is an updated post")
                 .build();
 
-        UserResponse userResponse = UserResponse.builder()
-                .withId(userId)
-                .withName("Test User")
-                .withEmail(email)
-                .build();
-
         PostResponse postResponse = PostResponse.builder()
                 .withId(postId)
                 .withHeader("Original Post")
@@ -169,18 +222,21 @@ public class PostServiceImplTest {
                 .withUser(User.builder().withId(userId).build())
                 .build();
 
-        when(userService.findUserByEmail(email)).thenReturn(userResponse);
-        when(postRepository.findById(postId)).thenReturn(Optional.of(postEntity));
+        PostView postView = postView(postId, userId, "Original Post", "This is an original post");
+
+        when(postRepository.findPostViewById(postId)).thenReturn(Optional.of(postView));
         when(imageRepository.findImagesIdRelateToPost(postId)).thenReturn(Collections.emptyList());
-        when(mapper.toResponse(postEntity)).thenReturn(postResponse);
+        when(mapper.toResponse(postView)).thenReturn(postResponse);
         when(mapper.toEntity(request)).thenReturn(postEntity);
+        when(postRepository.save(postEntity)).thenReturn(postEntity);
 
-        assertDoesNotThrow(() -> postService.updatePost(request, email));
+        assertDoesNotThrow(() -> postService.updatePost(request, userId));
 
-        verify(userService, times(1)).findUserByEmail(email);
-        verify(postRepository, times(1)).findById(postId);
+        verify(postRepository, times(1)).findPostViewById(postId);
         verify(mapper, times(1)).toEntity(request);
         verify(postRepository, times(1)).save(postEntity);
+        verify(latestPostRepository, times(1)).upsertLatestPost(userId, postId, postEntity.getCreatedAt());
+        verify(postCacheService, times(1)).evict(postId);
     }
 
     @Test
@@ -189,19 +245,12 @@ public class PostServiceImplTest {
         int postId = 1;
         int userId = 1;
         int otherUserId = 2;
-        String email = "test@example.com";
         PostRequest request = PostRequest.builder()
                 .withId(postId)
                 .withHeader("Updated Post")
                 .withContent("This is an updated post")
                 .build();
 
-        UserResponse userResponse = UserResponse.builder()
-                .withId(otherUserId)
-                .withName("Test User")
-                .withEmail(email)
-                .build();
-
         PostResponse postResponse = PostResponse.builder()
                 .withId(postId)
                 .withHeader("Original Post")
@@ -216,16 +265,17 @@ public class PostServiceImplTest {
                 .withUser(User.builder().withId(userId).build())
                 .build();
 
-        when(userService.findUserByEmail(email)).thenReturn(userResponse);
-        when(postRepository.findById(postId)).thenReturn(Optional.of(postEntity));
+        PostView postView = postView(postId, userId, "Original Post", "This is an original post");
+
+        when(postRepository.findPostViewById(postId)).thenReturn(Optional.of(postView));
         when(imageRepository.findImagesIdRelateToPost(postId)).thenReturn(Collections.emptyList());
-        when(mapper.toResponse(postEntity)).thenReturn(postResponse);
+        when(mapper.toResponse(postView)).thenReturn(postResponse);
 
-        assertThrows(PostNotValidDataException.class, () -> postService.updatePost(request, email));
+        assertThrows(PostNotValidDataException.class, () -> postService.updatePost(request, otherUserId));
 
-        verify(userService, times(1)).findUserByEmail(email);
-        verify(postRepository, times(1)).findById(postId);
-        verifyNoMoreInteractions(userService, postRepository, mapper);
+        verify(postRepository, times(1)).findPostViewById(postId);
+        verifyNoMoreInteractions(postRepository, mapper);
+        verifyNoInteractions(latestPostRepository);
     }
 
     @Test
@@ -236,14 +286,40 @@ public class PostServiceImplTest {
                 .withId(postId)
                 .withHeader("Test Post")
                 .withContent("This is a test post")
+                .withUser(User.builder().withId(1).build())
                 .build();
 
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(latestPostRepository.deleteLatestPostByPostId(postId)).thenReturn(0);
 
         assertDoesNotThrow(() -> postService.deletePostById(postId));
 
         verify(postRepository, times(1)).findById(postId);
         verify(postRepository, times(1)).deleteById(postId);
+        verify(latestPostRepository, never()).insertLatestPostOfUser(1, postId);
+        verify(postCacheService, times(1)).evict(postId);
+    }
+
+    @Test
+    void deletePostById_latestPostOfUser_replaceLatestPostWithPreviousOne() {
+
+        int postId = 1;
+        int userId = 3;
+        Post post = Post.builder()
+                .withId(postId)
+                .withHeader("Test Post")
+                .withContent("This is a test post")
+                .withUser(User.builder().withId(userId).build())
+                .build();
+
+        when(postRepository.findById(postId)).thenReturn(Optional.of(post));
+        when(latestPostRepository.deleteLatestPostByPostId(postId)).thenReturn(1);
+
+        assertDoesNotThrow(() -> postService.deletePostById(postId));
+
+        verify(latestPostRepository, times(1)).deleteLatestPostByPostId(postId);
+        verify(latestPostRepository, times(1)).insertLatestPostOfUser(userId, postId);
+        verify(postRepository, times(1)).deleteById(postId);
     }
 
     @Test
@@ -260,29 +336,48 @@ public class PostServiceImplTest {
     }
 
     @Test
-    void findAllPostsRelateToUser_existingUserId_returnListOfPostResponses() {
+    void findLastPostOfSubscriptionsPageable_timelineCached_hydratePostsInTimelineOrder() {
 
         int userId = 1;
+        int itemsPerPage = 10;
+        int page = 1;
 
-        Post post1 = Post.builder()
-                .withId(1)
-                .withHeader("Post 1")
-                .withContent("This is post 1")
-                .withUser(User.builder().withId(userId).build())
-                .build();
+        PostView post1 = postView(1, userId, "Post 1", "This is post 1");
 
-        Post post2 = Post.builder()
-                .withId(2)
-                .withHeader("Post 2")
-                .withContent("This is post 2")
-                .withUser(User.builder().withId(userId).build())
-                .build();
+        PostView post2 = postView(2, userId, "Post 2", "This is post 2");
 
-        List<Post> posts = List.of(post1, post2);
+        PostResponse response1 = PostResponse.builder().withId(1).build();
+        PostResponse response2 = PostResponse.builder().withId(2).build();
 
-        when(postRepository.findPostsByUserId(userId)).thenReturn(posts);
-        when(imageRepository.findImagesIdRelateToPost(1)).thenReturn(Collections.emptyList());
-        when(imageRepository.findImagesIdRelateToPost(2)).thenReturn(List.of(1, 2));
+        when(timelineService.findPostIds(userId, 0, itemsPerPage)).thenReturn(Optional.of(List.of(2, 1)));
+        when(postRepository.findPostViewsByIdIn(List.of(2, 1))).thenReturn(List.of(post1, post2));
+        when(imageRepository.findImageIdsByPostIds(Set.of(1, 2))).thenReturn(Collections.emptyList());
+        when(mapper.toResponse(post1)).thenReturn(response1);
+        when(mapper.toResponse(post2)).thenReturn(response2);
+
+        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, page);
+
+        assertEquals(List.of(response2, response1), result);
+        verify(postRepository, times(1)).findPostViewsByIdIn(List.of(2, 1));
+        verify(postRepository, never()).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
+    }
+
+    @Test
+    void findLastPostOfSubscriptionsPageable_existingUserIdAndValidPagination_returnListOfPostResponses() {
+
+        int userId = 1;
+        int itemsPerPage = 10;
+        int page = 1;
+
+        PostView post1 = postView(1, userId, "Post 1", "This is post 1");
+
+        PostView post2 = postView(2, userId, "Post 2", "This is post 2");
+
+        List<PostView> posts = List.of(post1, post2);
+
+        when(postRepository.findLatestPostsOfSubscribers(userId, itemsPerPage, 0)).thenReturn(posts);
+        when(imageRepository.findImageIdsByPostIds(Set.of(1, 2)))
+                .thenReturn(List.of(imageIdView(2, 1), imageIdView(2, 2)));
 
         PostResponse response1 = PostResponse.builder()
                 .withId(1)
@@ -300,7 +395,7 @@ public class PostServiceImplTest {
         when(mapper.toResponse(post1)).thenReturn(response1);
         when(mapper.toResponse(post2)).thenReturn(response2);
 
-        List<PostResponse> result = postService.findAllPostsRelateToUser(userId);
+        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, page);
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -308,175 +403,171 @@ public class PostServiceImplTest {
         assertEquals(response1, result.get(0));
         assertEquals(response2, result.get(1));
 
-        verify(postRepository, times(1)).findPostsByUserId(userId);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(1);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(2);
+        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
+        verify(imageRepository, times(1)).findImageIdsByPostIds(Set.of(1, 2));
         verify(mapper, times(1)).toResponse(post1);
         verify(mapper, times(1)).toResponse(post2);
         verifyNoMoreInteractions(postRepository, imageRepository, mapper);
     }
 
     @Test
-    void findAllPostsRelateToUser_nonExistingUserId_returnEmptyList() {
+    void findLastPostOfSubscriptionsPageable_nonExistingUserId_returnEmptyList() {
 
         int userId = 1;
+        int itemsPerPage = 10;
+        int page = 1;
 
-        when(postRepository.findPostsByUserId(userId)).thenReturn(Collections.emptyList());
+        when(postRepository.findLatestPostsOfSubscribers(userId, itemsPerPage, 0)).thenReturn(Collections.emptyList());
 
-        List<PostResponse> result = postService.findAllPostsRelateToUser(userId);
+        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, page);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(postRepository, times(1)).findPostsByUserId(userId);
+        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
         verifyNoMoreInteractions(postRepository, imageRepository, mapper);
     }
 
     @Test
-    void findLastPostOfSubscriptions_existingUserId_returnListOfPostResponses() {
+    void findLastPostOfSubscriptionsPageable_fullPage_loadImagesOfAllPostsWithSingleQuery() {
 
         int userId = 1;
+        int itemsPerPage = 50;
 
-        Post post1 = Post.builder()
-                .withId(1)
-                .withHeader("Post 1")
-                .withContent("This is post 1")
-                .build();
-
-        Post post2 = Post.builder()
-                .withId(2)
-                .withHeader("Post 2")
-                .withContent("This is post 2")
-                .build();
+        List<PostView> posts = IntStream.rangeClosed(1, itemsPerPage)
+                .mapToObj(i -> postView(i, 2, "Post " + i, "This is post " + i))
+                .collect(Collectors.toList());
 
-        List<Post> posts = List.of(post1, post2);
-
-        when(postRepository.findLatestPostsOfSubscribers(userId)).thenReturn(posts);
-        when(imageRepository.findImagesIdRelateToPost(1)).thenReturn(Collections.emptyList());
-        when(imageRepository.findImagesIdRelateToPost(2)).thenReturn(List.of(1, 2));
+        when(postRepository.findLatestPostsOfSubscribers(userId, itemsPerPage, 0)).thenReturn(posts);
+        when(imageRepository.findImageIdsByPostIds(anyCollection()))
+                .thenReturn(List.of(imageIdView(3, 7), imageIdView(3, 8), imageIdView(50, 9)));
+        when(mapper.toResponse(any(PostView.class)))
+                .thenAnswer(invocation -> PostResponse.builder().withId(invocation.<PostView>getArgument(0).getId()).build());
 
-        PostResponse response1 = PostResponse.builder()
-                .withId(1)
-                .withHeader("Post 1")
-                .withContent("This is post 1")
-                .build();
+        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, 1);
 
-        PostResponse response2 = PostResponse.builder()
-                .withId(2)
-                .withHeader("Post 2")
-                .withContent("This is post 2")
-                .withImages(List.of(1, 2))
-                .build();
+        assertEquals(itemsPerPage, result.size());
+        assertEquals(List.of(7, 8), result.get(2).getImages());
+        assertEquals(List.of(9), result.get(49).getImages());
+        assertTrue(result.get(0).getImages().isEmpty());
+        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
+        verify(imageRepository, times(1)).findImageIdsByPostIds(anyCollection());
+        verifyNoMoreInteractions(postRepository, imageRepository);
+    }
 
-        when(mapper.toResponse(post1)).thenReturn(response1);
-        when(mapper.toResponse(post2)).thenReturn(response2);
+    @Test
+    void findAllPostsRelateToUserPageable_withoutCursor_returnFirstPage() {
 
-        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId);
+        int userId = 1;
+        PostView post = postView(3, userId, "Post 3", "This is post 3");
+        PostResponse response = PostResponse.builder().withId(3).build();
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
+        when(postRepository.findPostViewsByUserId(userId, 10)).thenReturn(List.of(post));
+        when(imageRepository.findImageIdsByPostIds(Set.of(3))).thenReturn(Collections.emptyList());
+        when(mapper.toResponse(post)).thenReturn(response);
 
-        assertEquals(response1, result.get(0));
-        assertEquals(response2, result.get(1));
+        List<PostResponse> result = postService.findAllPostsRelateToUser(userId, 0, null);
 
-        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(1);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(2);
-        verify(mapper, times(1)).toResponse(post1);
-        verify(mapper, times(1)).toResponse(post2);
-        verifyNoMoreInteractions(postRepository, imageRepository, mapper);
+        assertEquals(List.of(response), result);
+        verify(postRepository, times(1)).findPostViewsByUserId(userId, 10);
+        verifyNoMoreInteractions(postRepository);
     }
 
     @Test
-    void findLastPostOfSubscriptions_nonExistingUserId_returnEmptyList() {
+    void findAllPostsRelateToUserPageable_withCursor_returnPostsBeforeCursor() {
 
         int userId = 1;
+        LocalDateTime createdAt = LocalDateTime.of(2023, 5, 26, 9, 45);
 
-        when(postRepository.findLatestPostsOfSubscribers(userId)).thenReturn(Collections.emptyList());
+        when(postRepository.findPostViewsByUserIdBefore(userId, createdAt, 5, 2)).thenReturn(Collections.emptyList());
 
-        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId);
+        List<PostResponse> result = postService.findAllPostsRelateToUser(userId, 2, new KeysetCursor(createdAt, 5));
 
-        assertNotNull(result);
         assertTrue(result.isEmpty());
-
-        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId);
-        verifyNoMoreInteractions(postRepository, imageRepository, mapper);
+        verify(postRepository, times(1)).findPostViewsByUserIdBefore(userId, createdAt, 5, 2);
+        verifyNoInteractions(imageRepository);
     }
 
     @Test
-    void findLastPostOfSubscriptionsPageable_existingUserIdAndValidPagination_returnListOfPostResponses() {
+    void findAllPostsRelateToUserPageable_cursorWithoutTimestamp_throwException() {
 
-        int userId = 1;
-        int itemsPerPage = 10;
-        int page = 1;
-
-        Post post1 = Post.builder()
-                .withId(1)
-                .withHeader("Post 1")
-                .withContent("This is post 1")
-                .build();
+        KeysetCursor cursor = new KeysetCursor(null, 5);
 
-        Post post2 = Post.builder()
-                .withId(2)
-                .withHeader("Post 2")
-                .withContent("This is post 2")
-                .build();
+        assertThrows(IncorrectRequestDataException.class, () -> postService.findAllPostsRelateToUser(1, 2, cursor));
+        verifyNoInteractions(postRepository, imageRepository);
+    }
 
-        List<Post> posts = List.of(post1, post2);
+    @Test
+    void streamAllPostsRelateToUser_largeHistory_emitPostsInOrderLoadingImagesPerBatch() {
 
-        when(postRepository.findLatestPostsOfSubscribers(userId, itemsPerPage, 0)).thenReturn(posts);
-        when(imageRepository.findImagesIdRelateToPost(1)).thenReturn(Collections.emptyList());
-        when(imageRepository.findImagesIdRelateToPost(2)).thenReturn(List.of(1, 2));
+        int userId = 1;
+        int postsCount = 250;
+
+        Stream<PostView> posts = IntStream.rangeClosed(1, postsCount)
+                .mapToObj(i -> postView(i, userId, "Post " + i, "This is post " + i));
+
+        when(postRepository.streamPostViewsByUserId(userId)).thenReturn(posts);
+        when(imageRepository.findImageIdsByPostIds(anyCollection()))
+                .thenReturn(List.of(imageIdView(1, 11)))
+                .thenReturn(Collections.emptyList());
+        when(mapper.toResponse(any(PostView.class)))
+                .thenAnswer(invocation -> PostResponse.builder().withId(invocation.<PostView>getArgument(0).getId()).build());
+
+        List<PostResponse> result = new ArrayList<>();
+        postService.streamAllPostsRelateToUser(userId, result::add);
+
+        assertEquals(postsCount, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(List.of(11), result.get(0).getImages());
+        assertEquals(postsCount, result.get(postsCount - 1).getId());
+        verify(imageRepository, times(3)).findImageIdsByPostIds(anyCollection());
+    }
 
-        PostResponse response1 = PostResponse.builder()
-                .withId(1)
-                .withHeader("Post 1")
-                .withContent("This is post 1")
-                .build();
+    private static PostView postView(int id, int userId, String header, String content) {
 
-        PostResponse response2 = PostResponse.builder()
-                .withId(2)
-                .withHeader("Post 2")
-                .withContent("This is post 2")
-                .withImages(List.of(1, 2))
-                .build();
+        return new PostView() {
 
-        when(mapper.toResponse(post1)).thenReturn(response1);
-        when(mapper.toResponse(post2)).thenReturn(response2);
+            @Override
+            public Integer getId() {
+                return id;
+            }
 
-        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, page);
+            @Override
+            public Integer getUserId() {
+                return userId;
+            }
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
+            @Override
+            public String getHeader() {
+                return header;
+            }
 
-        assertEquals(response1, result.get(0));
-        assertEquals(response2, result.get(1));
+            @Override
+            public String getContent() {
+                return content;
+            }
 
-        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(1);
-        verify(imageRepository, times(1)).findImagesIdRelateToPost(2);
-        verify(mapper, times(1)).toResponse(post1);
-        verify(mapper, times(1)).toResponse(post2);
-        verifyNoMoreInteractions(postRepository, imageRepository, mapper);
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return null;
+            }
+        };
     }
 
-    @Test
-    void findLastPostOfSubscriptionsPageable_nonExistingUserId_returnEmptyList() {
+    private static PostImageIdView imageIdView(int postId, int imageId) {
 
-        int userId = 1;
-        int itemsPerPage = 10;
-        int page = 1;
-
-        when(postRepository.findLatestPostsOfSubscribers(userId, itemsPerPage, 0)).thenReturn(Collections.emptyList());
+        return new PostImageIdView() {
 
-        List<PostResponse> result = postService.findLastPostOfSubscriptions(userId, itemsPerPage, page);
+            @Override
+            public Integer getPostId() {
+                return postId;
+            }
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-
-        verify(postRepository, times(1)).findLatestPostsOfSubscribers(userId, itemsPerPage, 0);
-        verifyNoMoreInteractions(postRepository, imageRepository, mapper);
+            @Override
+            public Integer getImageId() {
+                return imageId;
+            }
+        };
     }
 
-
 }
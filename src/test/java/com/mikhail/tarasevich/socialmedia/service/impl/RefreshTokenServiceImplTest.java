@@ -0,0 +1,152 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
+import com.mikhail.tarasevich.socialmedia.entity.RefreshToken;
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.RefreshTokenRepository;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.exception.AuthenticationDataException;
+import com.mikhail.tarasevich.socialmedia.service.mapper.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceImplTest {
+
+    @InjectMocks
+    private RefreshTokenServiceImpl refreshTokenService;
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private UserMapper userMapper;
+
+    @Test
+    void createRefreshToken_inputUserId_savesOnlyTokenHash() {
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+
+        String refreshToken = refreshTokenService.createRefreshToken(1);
+
+        verify(refreshTokenRepository, times(1)).save(captor.capture());
+        RefreshToken saved = captor.getValue();
+        assertEquals(1, saved.getUser().getId());
+        assertEquals(64, saved.getTokenHash().length());
+        assertNotEquals(refreshToken, saved.getTokenHash());
+        verifyNoMoreInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void consumeRefreshToken_validToken_deletesTokenAndReturnsUser() {
+
+        User user = User.builder().withId(1).withName("John Doe").withEmail("john.doe@example.com").build();
+        UserResponse userResponse = UserResponse.builder().withId(1).withName("John Doe").withEmail("john.doe@example.com").build();
+        RefreshToken stored = RefreshToken.builder()
+                .withId(7)
+                .withUser(user)
+                .withExpiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteRefreshTokenById(7)).thenReturn(1);
+        when(userMapper.toResponse(user)).thenReturn(userResponse);
+
+        assertEquals(userResponse, refreshTokenService.consumeRefreshToken("token"));
+        verify(refreshTokenRepository, times(1)).deleteRefreshTokenById(7);
+    }
+
+    @Test
+    void consumeRefreshToken_tokenAlreadyUsed_throwsAuthenticationDataException() {
+
+        RefreshToken stored = RefreshToken.builder()
+                .withId(7)
+                .withUser(User.builder().withId(1).build())
+                .withExpiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteRefreshTokenById(7)).thenReturn(0);
+
+        assertThrows(AuthenticationDataException.class, () -> refreshTokenService.consumeRefreshToken("token"));
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void consumeRefreshToken_tokenExpired_throwsAuthenticationDataException() {
+
+        RefreshToken stored = RefreshToken.builder()
+                .withId(7)
+                .withUser(User.builder().withId(1).build())
+                .withExpiresAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteRefreshTokenById(7)).thenReturn(1);
+
+        assertThrows(AuthenticationDataException.class, () -> refreshTokenService.consumeRefreshToken("token"));
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void consumeRefreshToken_tokenExpiredThroughTransactionalProxy_commitDeletion() {
+
+        RefreshToken stored = RefreshToken.builder()
+                .withId(7)
+                .withUser(User.builder().withId(1).build())
+                .withExpiresAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        TransactionStatus status = new SimpleTransactionStatus();
+
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteRefreshTokenById(7)).thenReturn(1);
+
+        ProxyFactory proxyFactory = new ProxyFactory(refreshTokenService);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) transactionManager,
+                new AnnotationTransactionAttributeSource()));
+        RefreshTokenService proxy = (RefreshTokenService) proxyFactory.getProxy();
+
+        assertThrows(AuthenticationDataException.class, () -> proxy.consumeRefreshToken("token"));
+
+        verify(refreshTokenRepository, times(1)).deleteRefreshTokenById(7);
+        verify(transactionManager, times(1)).commit(status);
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void consumeRefreshToken_unknownToken_throwsAuthenticationDataException() {
+
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(AuthenticationDataException.class, () -> refreshTokenService.consumeRefreshToken("token"));
+        verifyNoInteractions(userMapper);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.LatestPost;
+import com.mikhail.tarasevich.socialmedia.repository.LatestPostRepository;
+import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceImplTest {
+
+    private TimelineServiceImpl timelineService;
+    @Mock
+    private LatestPostRepository latestPostRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setup() {
+        timelineService = new TimelineServiceImpl(latestPostRepository, userRepository, 3, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findPostIds_timelineMissing_loadTimelineOnceFromDb() {
+
+        when(latestPostRepository.findLatestPostsOfSubscriptions(1, 4)).thenReturn(List.of(
+                LatestPost.builder().withUserId(2).withPostId(20).build(),
+                LatestPost.builder().withUserId(3).withPostId(30).build()));
+
+        assertEquals(Optional.of(List.of(20, 30)), timelineService.findPostIds(1, 0, 10));
+        assertEquals(Optional.of(List.of(30)), timelineService.findPostIds(1, 1, 10));
+        verify(latestPostRepository, times(1)).findLatestPostsOfSubscriptions(1, 4);
+    }
+
+    @Test
+    void onPostPublished_authorAlreadyInTimeline_replaceAuthorEntryWithNewPost() {
+
+        when(latestPostRepository.findLatestPostsOfSubscriptions(1, 4)).thenReturn(List.of(
+                LatestPost.builder().withUserId(2).withPostId(20).build(),
+                LatestPost.builder().withUserId(3).withPostId(30).build()));
+        when(userRepository.findSubscriberIdsOfUser(3)).thenReturn(List.of(1, 5));
+
+        timelineService.findPostIds(1, 0, 10);
+        timelineService.onPostPublished(3, 31);
+
+        assertEquals(Optional.of(List.of(31, 20)), timelineService.findPostIds(1, 0, 10));
+    }
+
+    @Test
+    void onPostPublished_noTimelineCached_skipSubscriberLookup() {
+
+        timelineService.onPostPublished(3, 31);
+        timelineService.onPostRemoved(3);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void findPostIds_pageBeyondTruncatedTimeline_returnEmptyToFallBackToDb() {
+
+        when(latestPostRepository.findLatestPostsOfSubscriptions(1, 4)).thenReturn(List.of(
+                LatestPost.builder().withUserId(2).withPostId(20).build(),
+                LatestPost.builder().withUserId(3).withPostId(30).build(),
+                LatestPost.builder().withUserId(4).withPostId(40).build(),
+                LatestPost.builder().withUserId(5).withPostId(50).build()));
+
+        assertEquals(Optional.of(List.of(20, 30)), timelineService.findPostIds(1, 0, 2));
+        assertTrue(timelineService.findPostIds(1, 2, 2).isEmpty());
+    }
+
+    @Test
+    void onSubscriptionChanged_timelineCached_rebuildTimelineOnNextRead() {
+
+        when(latestPostRepository.findLatestPostsOfSubscriptions(1, 4)).thenReturn(List.of(
+                LatestPost.builder().withUserId(2).withPostId(20).build()));
+
+        timelineService.findPostIds(1, 0, 10);
+        timelineService.onSubscriptionChanged(1, 2);
+        timelineService.findPostIds(1, 0, 10);
+
+        verify(latestPostRepository, times(2)).findLatestPostsOfSubscriptions(1, 4);
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.RevokedToken;
+import com.mikhail.tarasevich.socialmedia.repository.RevokedTokenRepository;
+import com.mikhail.tarasevich.socialmedia.service.RefreshTokenService;
+import com.mikhail.tarasevich.socialmedia.service.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceImplTest {
+
+    private TokenRevocationServiceImpl revocationService;
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        revocationService = new TokenRevocationServiceImpl(revokedTokenRepository, refreshTokenService, 1000, 0.001, 60);
+    }
+
+    @Test
+    void isRevoked_tokenNotInFilter_doesNotQueryRepository() {
+
+        assertFalse(revocationService.isRevoked("token-id", "john.doe@example.com", Instant.now()));
+        verifyNoInteractions(revokedTokenRepository);
+    }
+
+    @Test
+    void isRevoked_tokenNotInFilterThroughTransactionalProxy_doesNotTouchTransactionManager() {
+
+        ProxyFactory proxyFactory = new ProxyFactory(revocationService);
+        proxyFactory.addAdvice(new TransactionInterceptor((TransactionManager) transactionManager,
+                new AnnotationTransactionAttributeSource()));
+        TokenRevocationService proxy = (TokenRevocationService) proxyFactory.getProxy();
+
+        assertFalse(proxy.isRevoked("token-id", "john.doe@example.com", Instant.now()));
+        verifyNoInteractions(transactionManager, revokedTokenRepository);
+    }
+
+    @Test
+    void isRevoked_revokedToken_returnsTrue() {
+
+        RevokedToken revokedToken = RevokedToken.builder().withTokenKey("jti:token-id").build();
+        when(revokedTokenRepository.findByTokenKey("jti:token-id"))
+                .thenReturn(Optional.empty()).thenReturn(Optional.of(revokedToken));
+
+        revocationService.revokeToken("token-id", Instant.now().plusSeconds(600));
+
+        assertTrue(revocationService.isRevoked("token-id", "john.doe@example.com", Instant.now()));
+        verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void isRevoked_tokenIssuedBeforeRevokeAll_returnsTrue() {
+
+        LocalDateTime revokedAt = LocalDateTime.now();
+        RevokedToken revokedToken = RevokedToken.builder()
+                .withTokenKey("user:john.doe@example.com")
+                .withRevokedAt(revokedAt)
+                .build();
+        when(revokedTokenRepository.findByTokenKey("user:john.doe@example.com"))
+                .thenReturn(Optional.empty()).thenReturn(Optional.of(revokedToken));
+
+        revocationService.revokeAllUserTokens(1, "john.doe@example.com");
+
+        assertTrue(revocationService.isRevoked(null, "john.doe@example.com", Instant.now().minusSeconds(60)));
+        assertFalse(revocationService.isRevoked(null, "john.doe@example.com", Instant.now().plusSeconds(60)));
+        verify(refreshTokenService, times(1)).revokeAllRefreshTokens(1);
+    }
+
+    @Test
+    void revokeToken_rebuildReadsTableBeforeCommit_keyIsRestoredAfterCommit() {
+
+        RevokedToken revokedToken = RevokedToken.builder().withTokenKey("jti:token-id").build();
+        when(revokedTokenRepository.findByTokenKey("jti:token-id"))
+                .thenReturn(Optional.empty()).thenReturn(Optional.of(revokedToken));
+        when(revokedTokenRepository.findActiveTokenKeys(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            revocationService.revokeToken("token-id", Instant.now().plusSeconds(600));
+
+            revocationService.rebuildFilter();
+            assertFalse(revocationService.isRevoked("token-id", null, Instant.now()));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(revocationService.isRevoked("token-id", null, Instant.now()));
+    }
+
+    @Test
+    void revokeAllUserTokens_rebuildReadsTableBeforeCommit_keyIsRestoredAfterCommit() {
+
+        RevokedToken revokedToken = RevokedToken.builder()
+                .withTokenKey("user:john.doe@example.com")
+                .withRevokedAt(LocalDateTime.now())
+                .build();
+        when(revokedTokenRepository.findByTokenKey("user:john.doe@example.com"))
+                .thenReturn(Optional.empty()).thenReturn(Optional.of(revokedToken));
+        when(revokedTokenRepository.findActiveTokenKeys(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            revocationService.revokeAllUserTokens(1, "john.doe@example.com");
+            revocationService.rebuildFilter();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(revocationService.isRevoked(null, "john.doe@example.com", Instant.now().minusSeconds(60)));
+    }
+
+    @Test
+    void rebuildFilter_activeKeysInRepository_addsThemToFilter() {
+
+        when(revokedTokenRepository.findActiveTokenKeys(any(LocalDateTime.class))).thenReturn(List.of("jti:token-id"));
+        when(revokedTokenRepository.findByTokenKey("jti:token-id"))
+                .thenReturn(Optional.of(RevokedToken.builder().withTokenKey("jti:token-id").build()));
+
+        revocationService.rebuildFilter();
+
+        assertTrue(revocationService.isRevoked("token-id", "john.doe@example.com", Instant.now()));
+        verify(revokedTokenRepository, times(1)).deleteExpiredTokens(any(LocalDateTime.class));
+    }
+
+    @Test
+    void rebuildFilter_noActiveKeys_dropsExpiredRevocations() {
+
+        when(revokedTokenRepository.findByTokenKey("jti:token-id")).thenReturn(Optional.empty());
+        revocationService.revokeToken("token-id", Instant.now().plusSeconds(1));
+
+        when(revokedTokenRepository.findActiveTokenKeys(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+        revocationService.rebuildFilter();
+
+        assertFalse(revocationService.isRevoked("token-id", null, Instant.now()));
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.mikhail.tarasevich.socialmedia.service.impl;
+
+import com.mikhail.tarasevich.socialmedia.entity.User;
+import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    private static final String EMAIL = "john.smith@example.com";
+    private static final String PASSWORD = "password";
+    private static final int TARGET_STRENGTH = 5;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+    @Mock
+    private UserRepository userRepository;
+
+    private DaoAuthenticationProvider authenticationProvider;
+
+    @BeforeEach
+    void setUp() {
+        authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService);
+        authenticationProvider.setPasswordEncoder(new BCryptPasswordEncoder(TARGET_STRENGTH));
+    }
+
+    @Test
+    void authenticate_hashBelowTargetStrength_upgradeHashOnSuccessfulLogin() {
+
+        User user = user(new BCryptPasswordEncoder(4).encode(PASSWORD));
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+
+        when(userRepository.findUserByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.save(captor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+
+        String upgraded = captor.getValue().getPassword();
+        assertTrue(upgraded.startsWith("$2a$05$"));
+        assertTrue(new BCryptPasswordEncoder().matches(PASSWORD, upgraded));
+        verify(userRepository, times(1)).save(user);
+    }
+
+    @Test
+    void authenticate_hashAtTargetStrength_keepStoredHash() {
+
+        User user = user(new BCryptPasswordEncoder(TARGET_STRENGTH).encode(PASSWORD));
+
+        when(userRepository.findUserByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+
+        verify(userRepository, never()).save(any());
+    }
+
+    private static User user(String passwordHash) {
+
+        return User.builder().withId(1).withName("John Smith").withEmail(EMAIL).withPassword(passwordHash).build();
+    }
+
+}
@@ -4,8 +4,10 @@ import com.mikhail.tarasevich.socialmedia.dto.UserRequest;
 import com.mikhail.tarasevich.socialmedia.dto.UserResponse;
 import com.mikhail.tarasevich.socialmedia.entity.User;
 import com.mikhail.tarasevich.socialmedia.repository.UserRepository;
+import com.mikhail.tarasevich.socialmedia.service.TimelineService;
 import com.mikhail.tarasevich.socialmedia.service.exception.IncorrectRequestDataException;
 import com.mikhail.tarasevich.socialmedia.service.exception.UserNotFoundException;
+import com.mikhail.tarasevich.socialmedia.service.exception.UserNotValidDataException;
 import com.mikhail.tarasevich.socialmedia.service.mapper.UserMapper;
 import com.mikhail.tarasevich.socialmedia.service.validator.UserValidator;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.ArrayList;
@@ -44,6 +47,8 @@ class UserServiceImplTest {
     private UserMapper userMapper;
     @Mock
     private PasswordEncoder encoder;
+    @Mock
+    private TimelineService timelineService;
 
 
     @Test
@@ -171,23 +176,45 @@ class UserServiceImplTest {
                 .withEmail("john@example.com")
                 .build();
 
-        doNothing().when(userValidator).validateName(request);
-        doNothing().when(userValidator).validateEmail(request);
         doNothing().when(userValidator).validatePassword(request);
+        doNothing().when(userValidator).validateUniqueness(request);
         when(encoder.encode(request.getPassword())).thenReturn("encodedPassword");
         when(userMapper.toEntity(request)).thenReturn(userForSave);
         when(userMapper.toResponse(savedUser)).thenReturn(savedUserResponse);
-        when(userRepository.save(userForSave)).thenReturn(savedUser);
+        when(userRepository.saveAndFlush(userForSave)).thenReturn(savedUser);
 
         UserResponse result = userService.saveUser(request);
 
         assertEquals(savedUser.getId(), result.getId());
         assertEquals(savedUser.getName(), result.getName());
         assertEquals(savedUser.getEmail(), result.getEmail());
-        verify(userValidator, times(1)).validateName(request);
-        verify(userValidator, times(1)).validateEmail(request);
         verify(userValidator, times(1)).validatePassword(request);
-        verify(userRepository, times(1)).save(userForSave);
+        verify(userValidator, times(1)).validateUniqueness(request);
+        verify(userRepository, times(1)).saveAndFlush(userForSave);
+    }
+
+    @Test
+    void saveUser_concurrentInsertWithSameEmail_throwsUserNotValidDataException() {
+
+        UserRequest request = UserRequest.builder()
+                .withName("John")
+                .withEmail("john@example.com")
+                .withPassword("1111")
+                .build();
+
+        User userForSave = User.builder()
+                .withName("John")
+                .withEmail("john@example.com")
+                .withPassword("encodedPassword")
+                .build();
+
+        when(encoder.encode(request.getPassword())).thenReturn("encodedPassword");
+        when(userMapper.toEntity(request)).thenReturn(userForSave);
+        when(userRepository.saveAndFlush(userForSave)).thenThrow(new DataIntegrityViolationException("users_email_key"));
+
+        assertThrows(UserNotValidDataException.class, () -> userService.saveUser(request));
+        verify(userValidator, times(1)).validateUniqueness(request);
+        verify(userMapper, never()).toResponse(userForSave);
     }
 
     @Test
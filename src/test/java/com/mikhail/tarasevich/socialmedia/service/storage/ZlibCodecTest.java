@@ -0,0 +1,126 @@
+package com.mikhail.tarasevich.socialmedia.service.storage;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.ImageIncorrectDataException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZlibCodecTest {
+
+    private final ZlibCodec zlibCodec = new ZlibCodec(1, 2);
+
+    @AfterEach
+    void tearDown() {
+        zlibCodec.close();
+    }
+
+    @Test
+    void decompress_storedOriginalLength_restoreOriginalData() throws IOException {
+
+        byte[] data = sampleData(100_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(data, zlibCodec.decompress(compress(data), data.length));
+        }
+    }
+
+    @Test
+    void decompress_unknownOriginalLength_restoreOriginalData() throws IOException {
+
+        byte[] data = sampleData(50_000);
+
+        assertArrayEquals(data, zlibCodec.decompress(compress(data), null));
+    }
+
+    @Test
+    void decompress_emptyData_returnEmptyArray() throws IOException {
+
+        assertArrayEquals(new byte[0], zlibCodec.decompress(compress(new byte[0]), 0));
+    }
+
+    @Test
+    void decompress_storedLengthTooSmall_throwException() throws IOException {
+
+        byte[] compressed = compress(sampleData(1000));
+
+        assertThrows(ImageIncorrectDataException.class, () -> zlibCodec.decompress(compressed, 999));
+    }
+
+    @Test
+    void decompress_storedLengthTooLarge_throwException() throws IOException {
+
+        byte[] compressed = compress(sampleData(1000));
+
+        assertThrows(ImageIncorrectDataException.class, () -> zlibCodec.decompress(compressed, 1001));
+    }
+
+    @Test
+    void decompress_corruptedData_throwException() {
+
+        assertThrows(ImageIncorrectDataException.class, () -> zlibCodec.decompress(new byte[]{8, 7, 0, 0, 0}, null));
+    }
+
+    @Test
+    void compressStream_readByteByByte_restoreOriginalData() throws IOException {
+
+        byte[] data = sampleData(40_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (InputStream stream = zlibCodec.compressStream(new ByteArrayInputStream(data))) {
+            int b;
+            while ((b = stream.read()) != -1) {
+                compressed.write(b);
+            }
+        }
+
+        assertArrayEquals(data, zlibCodec.decompress(compressed.toByteArray(), data.length));
+    }
+
+    @Test
+    void compressStream_consecutiveStreamsSharingPooledBuffers_restoreOriginalData() throws IOException {
+
+        for (int length : new int[]{100_000, 10, 70_000, 0}) {
+            byte[] data = sampleData(length);
+
+            assertArrayEquals(data, zlibCodec.decompress(compress(data), length));
+        }
+    }
+
+    @Test
+    void compressStream_readAfterClose_throwException() throws IOException {
+
+        InputStream stream = zlibCodec.compressStream(new ByteArrayInputStream(sampleData(10)));
+        stream.close();
+        stream.close();
+
+        assertThrows(IOException.class, stream::read);
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+
+        try (InputStream compressed = zlibCodec.compressStream(new ByteArrayInputStream(data))) {
+            return compressed.readAllBytes();
+        }
+    }
+
+    private static byte[] sampleData(int length) {
+
+        byte[] data = new byte[length];
+        Arrays.fill(data, 0, length / 2, (byte) 7);
+
+        for (int i = length / 2; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+
+        return data;
+    }
+
+}
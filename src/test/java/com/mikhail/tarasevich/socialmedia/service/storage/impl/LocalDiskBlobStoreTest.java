@@ -0,0 +1,82 @@
+package com.mikhail.tarasevich.socialmedia.service.storage.impl;
+
+import com.mikhail.tarasevich.socialmedia.service.exception.BlobStoreException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalDiskBlobStoreTest {
+
+    private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_KEY = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path root;
+
+    private LocalDiskBlobStore blobStore;
+
+    @BeforeEach
+    void setup() {
+        blobStore = new LocalDiskBlobStore(root.toString());
+    }
+
+    @Test
+    void put_content_storeUnderShardedSha256Path() {
+
+        String key = blobStore.put(CONTENT);
+
+        assertEquals(CONTENT_KEY, key);
+        assertTrue(Files.exists(root.resolve("2c").resolve("f2").resolve(CONTENT_KEY)));
+        assertArrayEquals(CONTENT, blobStore.get(key));
+    }
+
+    @Test
+    void put_identicalContentTwice_storeSingleFileAndLeaveNoTempFiles() throws IOException {
+
+        assertEquals(blobStore.put(CONTENT), blobStore.put(CONTENT));
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void resource_storedBlob_returnFileResourceWithContentLength() throws IOException {
+
+        String key = blobStore.put(CONTENT);
+
+        assertEquals(CONTENT.length, blobStore.resource(key).contentLength());
+        assertTrue(blobStore.resource(key).isFile());
+    }
+
+    @Test
+    void delete_storedBlob_removeBlob() {
+
+        String key = blobStore.put(CONTENT);
+
+        blobStore.delete(key);
+
+        assertFalse(blobStore.exists(key));
+        assertThrows(BlobStoreException.class, () -> blobStore.get(key));
+        assertThrows(BlobStoreException.class, () -> blobStore.resource(key));
+    }
+
+    @Test
+    void get_keyOutsideOfStore_throwException() {
+
+        assertThrows(BlobStoreException.class, () -> blobStore.get("../../etc/passwd"));
+    }
+
+}
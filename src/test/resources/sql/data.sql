@@ -27,6 +27,11 @@ VALUES (1, 'First post', 'This is my first post.', '2023-05-26 09:45:00.184705')
        (4, 'Funny meme', 'This meme made me laugh so hard!', '2023-05-22 22:22:22.22'),
        (5, 'Travel memories', 'Throwback to my amazing trip last year.', '2023-05-22 23:22:22.22');
 
+INSERT INTO latest_posts (user_id, post_id, created_at)
+SELECT p.user_id, p.id, p.created_at
+FROM posts p
+WHERE p.id = (SELECT p2.id FROM posts p2 WHERE p2.user_id = p.user_id ORDER BY p2.created_at DESC, p2.id DESC LIMIT 1);
+
 INSERT INTO images (post_id, name, type, data)
 VALUES (1, 'image1.png', 'image/png', 87000),
        (1, 'image2.png', 'image/png', 87001),
@@ -35,6 +40,10 @@ VALUES (1, 'image1.png', 'image/png', 87000),
        (5, 'image4.png', 'image/png', 87001),
        (6, 'image5.png', 'image/png', 87000);
 
+INSERT INTO image_variants (image_id, width, blob_key, type)
+VALUES (1, 160, '6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d', 'image/jpeg'),
+       (1, 320, NULL, NULL);
+
 INSERT INTO messages (from_user_id, to_user_id, message, created_at)
 VALUES (1, 2, 'Hey, how are you?', '2023-05-26 09:45:00.184705'),
        (2, 1, 'I''m good, thanks! How about you?', '2023-05-26 09:50:00.184705'),